@@ -1,5 +1,6 @@
 package com.eagle.controller;
 
+import com.eagle.journal.LedgerJournal;
 import com.eagle.model.AccountModel;
 import com.eagle.request.CreateAccount;
 import com.eagle.request.UpdateAccount;
@@ -7,43 +8,62 @@ import com.eagle.request.UpdateAccount;
 import jakarta.validation.Valid;
 
 import com.eagle.repository.AccountRepository;
+import com.eagle.response.BankAccountResponse;
+import com.eagle.response.ListBankAccountsResponse;
+import com.eagle.security.AccountAccess;
+import com.eagle.security.ResolvedEntities;
+import com.eagle.service.AccountNumberAllocator;
+import com.eagle.service.BalanceLedger;
+import com.eagle.service.TransactionResponseCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/v1/accounts")
 public class AccountController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final AccountRepository accountRepository;
+    private final ResolvedEntities resolvedEntities;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final BalanceLedger balanceLedger;
+    private final LedgerJournal ledgerJournal;
+    private final TransactionResponseCache transactionResponseCache;
+    private final ConditionalRequests conditionalRequests;
 
     @Autowired
-    public AccountController(AccountRepository accountRepository) {
+    public AccountController(AccountRepository accountRepository, ResolvedEntities resolvedEntities,
+                             AccountNumberAllocator accountNumberAllocator, BalanceLedger balanceLedger,
+                             LedgerJournal ledgerJournal, TransactionResponseCache transactionResponseCache,
+                             ConditionalRequests conditionalRequests) {
         this.accountRepository = accountRepository;
-    }
-
-    // Utility method to generate a unique account number in the pattern 01\d{6}
-    private String generateUniqueAccountNumber() {
-        String accountNumber;
-        do {
-            int randomSixDigits = (int)(Math.random() * 1_000_000);
-            accountNumber = String.format("01%06d", randomSixDigits);
-        } while (accountRepository.existsById(accountNumber));
-        return accountNumber;
+        this.resolvedEntities = resolvedEntities;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.balanceLedger = balanceLedger;
+        this.ledgerJournal = ledgerJournal;
+        this.transactionResponseCache = transactionResponseCache;
+        this.conditionalRequests = conditionalRequests;
     }
 
     // Create a new bank account
     @PostMapping
     public ResponseEntity<AccountModel> createAccount(@Valid @RequestBody CreateAccount accountRequest) {
         AccountModel accountModel = new AccountModel();
-        accountModel.setAccountNumber(generateUniqueAccountNumber());
+        accountModel.setAccountNumber(accountNumberAllocator.next()); // Unique in the pattern 01\d{6}
         accountModel.setSortCode("10-10-10");
         accountModel.setName(accountRequest.getName());
         accountModel.setAccountType(accountRequest.getAccountType());
@@ -56,47 +76,104 @@ public class AccountController {
         accountModel.setUserId(userId);
 
         accountRepository.save(accountModel);
+        ledgerJournal.accountCreated(accountModel);
         return ResponseEntity.status(201).body(accountModel);
     }
 
-    // List all bank accounts
+    // List the caller's bank accounts, one page at a time in account number order
     @GetMapping
-    public ResponseEntity<List<AccountModel>> listAccounts() {
-        return ResponseEntity.ok(accountRepository.findAll());
+    public ResponseEntity<ListBankAccountsResponse> listAccounts(
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String after) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE || (after != null && !after.matches("^01\\d{6}$"))) {
+            return ResponseEntity.badRequest().build();
+        }
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        // Read one extra row to find out whether there is a next page
+        Pageable page = PageRequest.of(0, limit + 1);
+        List<BankAccountResponse> accounts = after == null
+                ? accountRepository.findFirstPageByUserId(userId, page)
+                : accountRepository.findPageByUserIdAfter(userId, after, page);
+
+        String nextCursor = null;
+        if (accounts.size() > limit) {
+            accounts = accounts.subList(0, limit);
+            nextCursor = accounts.get(limit - 1).accountNumber();
+        }
+        return ResponseEntity.ok(new ListBankAccountsResponse(accounts, nextCursor));
     }
 
-    // Fetch account by account number
-    @PreAuthorize("@accountSecurity.hasAccessToAccount(#accountNumber)")
+    // Fetch account by account number; a client's current copy is confirmed from the version alone
+    @AccountAccess
     @GetMapping("/{accountNumber}")
-    public ResponseEntity<AccountModel> fetchAccountByAccountNumber(@PathVariable String accountNumber) {
-        return accountRepository.findById(accountNumber)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<AccountModel> fetchAccountByAccountNumber(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime asOf,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Historical balances aren't tagged: the version only tracks the current state
+        if (asOf != null) {
+            conditionalRequests.full(ConditionalRequests.Resource.ACCOUNT);
+            return resolvedEntities.account(accountNumber)
+                    .map(accountModel -> {
+                        // Historical balance from the latest snapshot at that time plus the transactions after it
+                        accountModel.setBalance(balanceLedger.balanceAsOf(accountNumber, asOf));
+                        return ResponseEntity.ok(accountModel);
+                    })
+                    .orElse(ResponseEntity.notFound().build());
+        }
+
+        if (ifNoneMatch != null) {
+            Optional<Long> version = resolvedEntities.accountVersion(accountNumber);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            ETag etag = ConditionalRequests.weakETag(version.get());
+            if (conditionalRequests.notModified(ConditionalRequests.Resource.ACCOUNT, ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.formattedTag()).build();
+            }
+        } else {
+            conditionalRequests.full(ConditionalRequests.Resource.ACCOUNT);
+        }
+
+        return resolvedEntities.account(accountNumber)
+                .map(accountModel -> ResponseEntity.ok()
+                        .eTag(ConditionalRequests.weakETag(accountModel.getVersion()).formattedTag())
+                        .body(accountModel))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     // Update account by account number
-    @PreAuthorize("@accountSecurity.hasAccessToAccount(#accountNumber)")
+    @AccountAccess
     @PatchMapping("/{accountNumber}")
     public ResponseEntity<AccountModel> updateAccountByAccountNumber(
             @PathVariable String accountNumber,
             @Valid @RequestBody UpdateAccount accountRequest) {
-        return accountRepository.findById(accountNumber)
-                .map(accountModel -> {
+        return resolvedEntities.account(accountNumber)
+                .filter(accountModel -> {
                     accountModel.setName(accountRequest.getName());
                     accountModel.setAccountType(accountRequest.getAccountType());
                     accountModel.setUpdatedTimestamp(OffsetDateTime.now());
-                    accountRepository.save(accountModel);
+                    // Zero rows means the account was deleted since the access check loaded it
+                    return accountRepository.updateDetails(accountNumber, accountModel.getName(),
+                            accountModel.getAccountType(), accountModel.getUpdatedTimestamp()) == 1;
+                })
+                .map(accountModel -> {
+                    accountModel.setVersion(accountModel.getVersion() + 1);
+                    ledgerJournal.accountUpdated(accountModel);
                     return ResponseEntity.ok(accountModel);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     // Delete account by account number
-    @PreAuthorize("@accountSecurity.hasAccessToAccount(#accountNumber)")
+    @AccountAccess
     @DeleteMapping("/{accountNumber}")
     public ResponseEntity<Void> deleteAccountByAccountNumber(@PathVariable String accountNumber) {
-        if (accountRepository.existsById(accountNumber)) {
-            accountRepository.deleteById(accountNumber);
+        if (resolvedEntities.account(accountNumber).isPresent()
+                && accountRepository.deleteAccount(accountNumber) == 1) {
+            ledgerJournal.accountDeleted(accountNumber);
+            transactionResponseCache.evictAccount(accountNumber);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -6,7 +6,6 @@ import org.springframework.web.bind.annotation.*;
 
 import com.eagle.security.JwtService;
 import com.eagle.repository.UserRepository;
-import com.eagle.model.UserModel;
 
 @RestController
 @RequestMapping("/v1/authenticate")
@@ -42,14 +41,14 @@ public class AuthenticateController {
     @PostMapping
     public ResponseEntity<AuthResponse> authenticate(@RequestBody AuthRequest request) {
         // Check if user exists by email
-        UserModel user = userRepository.findByEmail(request.getUsername())
+        String userId = userRepository.findIdByEmail(request.getUsername())
                 .orElse(null);
 
-        if (user == null) {
+        if (userId == null) {
             return ResponseEntity.status(401).build();
         }
 
-        String token = jwtService.generateToken(user.getId());
+        String token = jwtService.generateToken(userId);
         return ResponseEntity.ok(new AuthResponse(token));
     }
 }
\ No newline at end of file
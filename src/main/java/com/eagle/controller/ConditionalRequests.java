@@ -0,0 +1,75 @@
+package com.eagle.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.ETag;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Evaluates If-None-Match for the cacheable GET resources and counts the outcome per resource,
+ * as eagle.http.conditional_gets{resource, result=not_modified|full} and the share of requests
+ * answered with 304 since startup, eagle.http.not_modified_ratio{resource}.
+ */
+@Component
+public class ConditionalRequests {
+
+    public enum Resource {
+        ACCOUNT, TRANSACTIONS, TRANSACTION
+    }
+
+    private record Outcomes(Counter notModified, Counter full) {
+    }
+
+    private final Map<Resource, Outcomes> outcomes = new EnumMap<>(Resource.class);
+
+    public ConditionalRequests(MeterRegistry meterRegistry) {
+        for (Resource resource : Resource.values()) {
+            String tag = resource.name().toLowerCase(Locale.ROOT);
+            Outcomes counters = new Outcomes(
+                    Counter.builder("eagle.http.conditional_gets")
+                            .tags("resource", tag, "result", "not_modified")
+                            .description("GET requests answered with 304 or with the full representation")
+                            .register(meterRegistry),
+                    Counter.builder("eagle.http.conditional_gets")
+                            .tags("resource", tag, "result", "full")
+                            .description("GET requests answered with 304 or with the full representation")
+                            .register(meterRegistry));
+            Gauge.builder("eagle.http.not_modified_ratio", counters, c -> {
+                        double requests = c.notModified().count() + c.full().count();
+                        return requests == 0 ? Double.NaN : c.notModified().count() / requests;
+                    })
+                    .tag("resource", tag)
+                    .description("Share of GET requests answered with 304 since startup")
+                    .register(meterRegistry);
+            outcomes.put(resource, counters);
+        }
+    }
+
+    // Entity tag for a version counter; weak, as equal versions mean equivalent, not identical, bytes
+    public static ETag weakETag(long version) {
+        return new ETag(Long.toString(version), true);
+    }
+
+    /**
+     * Whether the copy the client names in If-None-Match is current, using the weak comparison
+     * If-None-Match calls for. Each call counts as one request for the resource; call
+     * {@link #full(Resource)} instead where a request has no tag to compare.
+     */
+    public boolean notModified(Resource resource, String ifNoneMatch, ETag current) {
+        boolean notModified = ifNoneMatch != null
+                && ETag.parse(ifNoneMatch).stream().anyMatch(tag -> tag.compare(current, false));
+        Outcomes counters = outcomes.get(resource);
+        (notModified ? counters.notModified() : counters.full()).increment();
+        return notModified;
+    }
+
+    // Counts a request answered with the full representation without evaluating a tag
+    public void full(Resource resource) {
+        outcomes.get(resource).full().increment();
+    }
+}
@@ -1,132 +1,346 @@
 package com.eagle.controller;
 
-import com.eagle.model.AccountModel;
 import com.eagle.model.TransactionModel;
 import com.eagle.request.CreateTransaction;
 import com.eagle.repository.TransactionRepository;
-import com.eagle.repository.AccountRepository;
+import com.eagle.security.AccountAccess;
+import com.eagle.security.ResolvedEntities;
 import com.eagle.response.ListTransactionsResponse;
+import com.eagle.response.TransactionCursor;
 import com.eagle.response.TransactionResponse;
+import com.eagle.service.AsyncPostingQueue;
+import com.eagle.service.BalancePostingStrategy;
+import com.eagle.service.BulkTransactionImporter;
+import com.eagle.service.PostingResult;
+import com.eagle.service.TransactionExporter;
+import com.eagle.service.TransactionIdGenerator;
+import com.eagle.service.TransactionMapper;
+import com.eagle.service.TransactionResponseCache;
+import com.eagle.service.TransactionStreamHub;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.access.prepost.PreAuthorize;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
-import java.time.OffsetDateTime;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/v1/accounts/{accountNumber}/transactions")
 public class TransactionController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // How long a client is asked to wait before retrying a full queue or polling a queued posting
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    // Transactions never change, so clients may keep them for good without revalidating
+    private static final String IMMUTABLE = "private, max-age=31536000, immutable";
+
     @Autowired
     private TransactionRepository transactionRepository;
 
     @Autowired
-    private AccountRepository accountRepository;
+    private ResolvedEntities resolvedEntities;
+
+    @Autowired
+    private BalancePostingStrategy balancePostingStrategy;
+
+    @Autowired
+    private BulkTransactionImporter bulkTransactionImporter;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
 
-    // List all transactions for an account
-    @PreAuthorize("@accountSecurity.hasAccessToAccount(#accountNumber)")
+    @Autowired
+    private TransactionExporter transactionExporter;
+
+    @Autowired
+    private AsyncPostingQueue asyncPostingQueue;
+
+    @Autowired
+    private TransactionResponseCache transactionResponseCache;
+
+    @Autowired
+    private ConditionalRequests conditionalRequests;
+
+    @Autowired
+    private TransactionStreamHub transactionStreamHub;
+
+    // Age after which a transaction is taken to be committed, for moving delta sync cursors past it
+    @Value("${eagle.transactions.sync-settle:10s}")
+    private Duration syncSettle;
+
+    // List transactions for an account, one page at a time in creation order; with since, only those after a sync cursor
+    @AccountAccess
     @GetMapping
-    public ResponseEntity<ListTransactionsResponse> listTransactions(@PathVariable String accountNumber) {
-        // Check if account exists
-        if (!accountRepository.existsById(accountNumber)) {
+    public ResponseEntity<ListTransactionsResponse> listTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE || (after != null && since != null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // A delta sync starts from an empty since and carries on from the cursor each response returns
+        String from = since != null ? since : after;
+        TransactionCursor cursor = null;
+        if (from != null && !(since != null && since.isEmpty())) {
+            cursor = TransactionCursor.decode(from);
+            if (cursor == null) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        // Every posting bumps the account's version, so it tags every page of the list. Read before
+        // the page: a posting in between makes the page newer than its tag, never older.
+        Optional<Long> version = resolvedEntities.accountVersion(accountNumber);
+        if (version.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        // A sync cursor also moves as transactions settle, with no posting, so sync responses aren't tagged
+        ETag etag = since == null ? ConditionalRequests.weakETag(version.get()) : null;
+        if (etag == null) {
+            conditionalRequests.full(ConditionalRequests.Resource.TRANSACTIONS);
+        } else if (conditionalRequests.notModified(ConditionalRequests.Resource.TRANSACTIONS, ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.formattedTag()).build();
+        }
 
-        List<TransactionModel> transactions = transactionRepository.findAllByAccountNumber(accountNumber);
+        // Read one extra row to find out whether there is a next page
+        Pageable page = PageRequest.of(0, limit + 1);
+        List<TransactionResponse> transactions = cursor == null
+                ? transactionRepository.findFirstPage(accountNumber, page)
+                : transactionRepository.findPageAfter(accountNumber, cursor.id(), page);
 
-        List<TransactionResponse> responses = transactions.stream().map(this::toResponse).collect(Collectors.toList());
-        return ResponseEntity.ok(new ListTransactionsResponse(responses));
+        boolean more = transactions.size() > limit;
+        if (more) {
+            transactions = transactions.subList(0, limit);
+        }
+        String nextCursor = null;
+        if (since != null) {
+            nextCursor = syncCursor(cursor, transactions, more);
+        } else if (more) {
+            nextCursor = TransactionCursor.of(transactions.get(limit - 1)).encode();
+        }
+
+        ListTransactionsResponse body = new ListTransactionsResponse(transactions, nextCursor);
+        return etag == null
+                ? ResponseEntity.ok(body)
+                : ResponseEntity.ok().eTag(etag.formattedTag()).body(body);
+    }
+
+    /**
+     * Cursor a delta sync resumes from, present even when nothing is new. IDs are issued before a
+     * posting commits, and queued postings wait longer still, so a transaction can appear after one
+     * with a later ID. The cursor therefore only moves past transactions older than the settle
+     * window; younger ones are sent again by the next sync, and clients drop repeats by ID.
+     */
+    private String syncCursor(TransactionCursor since, List<TransactionResponse> transactions, boolean more) {
+        String settledBefore = TransactionIdGenerator.lowerBound(Instant.now().minus(syncSettle));
+        TransactionCursor next = since;
+        for (TransactionResponse transaction : transactions) {
+            if (transaction.getId().compareTo(settledBefore) < 0) {
+                next = TransactionCursor.of(transaction);
+            }
+        }
+        // A full page of unsettled transactions would otherwise be sent again forever
+        if (more && next == since) {
+            next = TransactionCursor.of(transactions.get(transactions.size() - 1));
+        }
+        return next == null ? "" : next.encode();
     }
 
     // Create a new transaction for an account
-    @PreAuthorize("@accountSecurity.hasAccessToAccount(#accountNumber)")
+    @AccountAccess
     @PostMapping
     public ResponseEntity<TransactionResponse> createTransaction(
             @PathVariable String accountNumber,
             @Valid @RequestBody CreateTransaction transactionRequest,
-            @RequestHeader("Authorization") String authorizationHeader
+            @RequestHeader("Authorization") String authorizationHeader,
+            @RequestHeader(value = "Prefer", required = false) String prefer
     ) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userId = authentication.getName();
 
-        // Fetch account directly from repository
-        AccountModel account = accountRepository.findById(accountNumber).orElse(null);
-        if (account == null) {
-            return ResponseEntity.status(404).build();
+        if (prefer != null && prefer.contains("respond-async")) {
+            return createTransactionAsync(transactionMapper.toPendingModel(accountNumber, userId, transactionRequest));
         }
 
-        // Check balance for withdrawal
-        if ("withdrawal".equalsIgnoreCase(transactionRequest.getType())) {
-            if (account.getBalance() < transactionRequest.getAmount()) {
-                return ResponseEntity.status(422).body(null); // Or use a custom error response
-            }
+        TransactionModel transactionModel = transactionMapper.toModel(accountNumber, userId, transactionRequest);
+
+        // Update balance and save the transaction under the configured concurrency strategy
+        PostingResult result = balancePostingStrategy.post(transactionModel);
+        if (result != PostingResult.POSTED) {
+            return ResponseEntity.status(result.getHttpStatus()).build();
         }
 
-        // Update balance
-        double updateAmount = transactionRequest.getAmount();
-        if ("withdrawal".equalsIgnoreCase(transactionRequest.getType())) {
-            updateAmount = -updateAmount;
+        // Transform to response
+        TransactionResponse response = transactionMapper.toResponse(transactionModel);
+
+        return ResponseEntity.status(201).body(response);
+    }
+
+    // Queue the posting and answer at once with where to poll for its outcome
+    private ResponseEntity<TransactionResponse> createTransactionAsync(TransactionModel transactionModel) {
+        if (!resolvedEntities.accountExists(transactionModel.getAccountNumber())) {
+            return ResponseEntity.notFound().build();
         }
-        account.setBalance(account.getBalance() + updateAmount);
-        accountRepository.save(account);
+        AsyncPostingQueue.Submission submission = asyncPostingQueue.submit(transactionModel);
+        return switch (submission.admission()) {
+            case ACCEPTED -> ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                            .path("/postings/{postingId}")
+                            .buildAndExpand(submission.postingId())
+                            .toUri())
+                    .header("Preference-Applied", "respond-async")
+                    .build();
+            case QUEUE_FULL -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+            case SHUT_DOWN -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+        };
+    }
 
-        // Create and save transaction
-        TransactionModel transactionModel = new TransactionModel();
-        transactionModel.setId("tan-" + java.util.UUID.randomUUID().toString().replace("-", "").substring(0, 8));
-        transactionModel.setAmount(transactionRequest.getAmount());
-        transactionModel.setCurrency(transactionRequest.getCurrency());
-        transactionModel.setType(transactionRequest.getType());
-        transactionModel.setReference(transactionRequest.getReference());
-        transactionModel.setCreatedTimestamp(OffsetDateTime.now());
-        transactionModel.setAccountNumber(accountNumber);
-        transactionModel.setUserId(userId);
+    // Outcome of a posting queued with Prefer: respond-async; 202 while it is still queued
+    @AccountAccess
+    @GetMapping("/postings/{postingId}")
+    public ResponseEntity<TransactionResponse> getPostingStatus(
+            @PathVariable String accountNumber,
+            @PathVariable String postingId
+    ) {
+        return asyncPostingQueue.status(postingId)
+                .filter(status -> status.transaction().getAccountNumber().equals(accountNumber))
+                .map(status -> {
+                    if (status.pending()) {
+                        return ResponseEntity.accepted()
+                                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                                .<TransactionResponse>build();
+                    }
+                    if (status.failed()) {
+                        return ResponseEntity.internalServerError().<TransactionResponse>build();
+                    }
+                    if (status.result() != PostingResult.POSTED) {
+                        return ResponseEntity.status(status.result().getHttpStatus()).<TransactionResponse>build();
+                    }
+                    return ResponseEntity.ok(transactionMapper.toResponse(status.transaction()));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
 
-        transactionRepository.save(transactionModel);
+    // Create transactions in bulk from a streamed NDJSON body, one NDJSON result line per record
+    @AccountAccess
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void bulkCreateTransactions(
+            @PathVariable String accountNumber,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        if (!resolvedEntities.accountExists(accountNumber)) {
+            response.setStatus(404);
+            return;
+        }
 
-        // Transform to response
-        TransactionResponse response = toResponse(transactionModel);
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        response.setStatus(200);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        bulkTransactionImporter.importTransactions(accountNumber, userId, request.getInputStream(), response.getOutputStream());
+    }
 
-        return ResponseEntity.status(201).body(response);
+    // Export the full transaction history of an account as NDJSON or CSV, streamed from the database
+    @AccountAccess
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        TransactionExporter.Format exportFormat;
+        MediaType contentType;
+        if ("csv".equalsIgnoreCase(format)) {
+            exportFormat = TransactionExporter.Format.CSV;
+            contentType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            exportFormat = TransactionExporter.Format.NDJSON;
+            contentType = MediaType.APPLICATION_NDJSON;
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (!resolvedEntities.accountExists(accountNumber)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody body = out -> transactionExporter.export(accountNumber, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions-" + accountNumber + "." + format.toLowerCase() + "\"")
+                .body(body);
+    }
+
+    // Push each transaction committed to the account from now on as a server-sent event
+    @AccountAccess
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTransactions(@PathVariable String accountNumber) {
+        if (!resolvedEntities.accountExists(accountNumber)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(transactionStreamHub.subscribe(accountNumber));
     }
 
     // Get a transaction by ID for an account
-    @PreAuthorize("@accountSecurity.hasAccessToAccount(#accountNumber)")
+    @AccountAccess
     @GetMapping("/{transactionId}")
-    public ResponseEntity<TransactionResponse> getTransactionById(
+    public ResponseEntity<byte[]> getTransactionById(
             @PathVariable String accountNumber,
-            @PathVariable String transactionId
+            @PathVariable String transactionId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
-        if (!accountRepository.existsById(accountNumber)) {
+        // Cached JSON confirms the transaction without reading anything; on a miss, one query, empty if
+        // the account or the transaction doesn't exist, or they don't match
+        Optional<byte[]> json = transactionResponseCache.get(accountNumber, transactionId,
+                () -> transactionRepository.findResponseByIdAndAccountNumber(transactionId, accountNumber));
+        if (json.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        return transactionRepository.findById(transactionId)
-                .filter(tx -> accountNumber.equals(tx.getAccountNumber()))
-                .map(tx -> {
-                    return toResponse(tx);
-                })
-                .map(ResponseEntity::ok)
+        // The tag follows from the path, and only a transaction known to exist is confirmed with it
+        ETag etag = ETag.create(TransactionResponseCache.etag(accountNumber, transactionId));
+        if (conditionalRequests.notModified(ConditionalRequests.Resource.TRANSACTION, ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag.formattedTag())
+                    .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+                    .build();
+        }
+        return json
+                .map(body -> ResponseEntity.ok()
+                        .eTag(etag.formattedTag())
+                        .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(body))
                 .orElse(ResponseEntity.notFound().build());
     }
-
-    // Helper method to map TransactionModel to TransactionResponse
-    private TransactionResponse toResponse(TransactionModel transactionModel) {
-        TransactionResponse response = new TransactionResponse();
-        response.setId(transactionModel.getId());
-        response.setAmount(transactionModel.getAmount());
-        response.setCurrency(transactionModel.getCurrency());
-        response.setType(transactionModel.getType());
-        response.setReference(transactionModel.getReference());
-        response.setUserId(transactionModel.getUserId());
-        response.setCreatedTimestamp(transactionModel.getCreatedTimestamp());
-        return response;
-    }
 }
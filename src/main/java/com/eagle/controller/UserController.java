@@ -1,14 +1,17 @@
 package com.eagle.controller;
 
+import com.eagle.journal.LedgerJournal;
 import com.eagle.model.UserModel;
 import com.eagle.repository.AccountRepository;
+import com.eagle.repository.CustomUserDetailsService;
 import com.eagle.repository.UserRepository;
 import com.eagle.request.CreateUser;
 import com.eagle.request.UpdateUser;
+import com.eagle.security.UserAccess;
+import com.eagle.security.ResolvedEntities;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
@@ -20,10 +23,18 @@ public class UserController {
 
     private final UserRepository repo;
     private final AccountRepository accountRepository;
+    private final CustomUserDetailsService userDetailsService;
+    private final ResolvedEntities resolvedEntities;
+    private final LedgerJournal ledgerJournal;
 
-    public UserController(UserRepository repo, AccountRepository accountRepository) {
+    public UserController(UserRepository repo, AccountRepository accountRepository,
+                          CustomUserDetailsService userDetailsService, ResolvedEntities resolvedEntities,
+                          LedgerJournal ledgerJournal) {
         this.repo = repo;
         this.accountRepository = accountRepository;
+        this.userDetailsService = userDetailsService;
+        this.resolvedEntities = resolvedEntities;
+        this.ledgerJournal = ledgerJournal;
     }
     // Create a new user
     @PostMapping
@@ -48,14 +59,15 @@ public class UserController {
             userModel.setAddress(address);
         }
         repo.save(userModel);
+        ledgerJournal.userSaved(userModel);
         return ResponseEntity.status(201).body(userModel);
     }
 
     // Fetch user by ID
-    @PreAuthorize("@userSecurity.hasAccessToUser(#userId)")
+    @UserAccess
     @GetMapping("/{userId}")
     public ResponseEntity<UserModel> fetchUserById(@PathVariable String userId) {
-        return repo.findById(userId)
+        return resolvedEntities.user(userId)
                 .map(user -> {
                     return ResponseEntity.ok(user);
                 })
@@ -65,15 +77,15 @@ public class UserController {
     }
 
     // Update user by ID
-    @PreAuthorize("@userSecurity.hasAccessToUser(#userId)")
+    @UserAccess
     @PatchMapping("/{userId}")
     public ResponseEntity<UserModel> updateUserById(
             @PathVariable String userId,
             @Valid @RequestBody UpdateUser userUpdateRequest) {
 
-        // Find the existing user
-        return repo.findById(userId)
-                .map(existingUser -> {
+        // Reuse the user loaded by the access check
+        return resolvedEntities.user(userId)
+                .filter(existingUser -> {
                     existingUser.setName(userUpdateRequest.getName());
                     existingUser.setPhoneNumber(userUpdateRequest.getPhoneNumber());
                     existingUser.setEmail(userUpdateRequest.getEmail());
@@ -91,7 +103,12 @@ public class UserController {
                         existingUser.setAddress(address);
                     }
 
-                    repo.save(existingUser);
+                    // Zero rows means the user was deleted since the access check loaded it
+                    return repo.updateDetails(existingUser) == 1;
+                })
+                .map(existingUser -> {
+                    userDetailsService.evict(userId);
+                    ledgerJournal.userSaved(existingUser);
                     return ResponseEntity.ok(existingUser);
                 })
                 .orElseGet(() -> {
@@ -100,19 +117,21 @@ public class UserController {
     }
 
     // Delete user by ID
-    @PreAuthorize("@userSecurity.hasAccessToUser(#userId)")
+    @UserAccess
     @DeleteMapping("/{userId}")
     public ResponseEntity<Object> deleteUserById(@PathVariable String userId) {
 
         // Check if user has any accounts
-        boolean hasAccounts = accountRepository.findAllByUserId(userId).size() > 0;
+        boolean hasAccounts = accountRepository.existsByUserId(userId);
         if (hasAccounts) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body("User has associated accounts and cannot be deleted.");
         }
 
-        return repo.findById(userId)
+        return resolvedEntities.user(userId)
+            .filter(existingUser -> repo.deleteUser(userId) == 1)
             .map(existingUser -> {
-                repo.delete(existingUser);
+                userDetailsService.evict(userId);
+                ledgerJournal.userDeleted(userId);
                 return ResponseEntity.noContent().build();
             })
             .orElseGet(() -> {
@@ -0,0 +1,279 @@
+package com.eagle.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of typed records in fixed-size segment files, each written through a
+ * {@link MappedByteBuffer}. A record is {@code [int length][int CRC32C of type and payload]
+ * [byte type][payload]}; the length is written last, so a segment is read up to the first
+ * zero length or the first record whose length or checksum doesn't hold. A segment is
+ * rotated when the next record doesn't fit in it.
+ * <p>
+ * {@link #commit()} applies the fsync policy: {@code ALWAYS} forces the pages written since
+ * the last force before returning, {@code BATCH} leaves them to a flusher thread that forces
+ * every interval, and {@code NONE} leaves them to the operating system.
+ */
+public final class Journal implements AutoCloseable {
+
+    public enum FsyncPolicy {
+        ALWAYS, BATCH, NONE
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        // The payload is only valid during the call
+        void accept(byte type, ByteBuffer payload);
+    }
+
+    static final int HEADER_SIZE = 9;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final ScheduledExecutorService flusher;
+
+    private long segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int forcedPosition; // Bytes of the current segment known to be on disk
+    private long forces; // Forces that wrote pages to disk since opening
+    private boolean closed;
+
+    private Journal(Path directory, int segmentSize, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        if (fsyncPolicy == FsyncPolicy.BATCH) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.flusher.scheduleWithFixedDelay(this::forceQuietly, fsyncIntervalMillis, fsyncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Opens the journal in a directory, creating it if needed, and positions appends after the
+     * last whole record. A torn record at the end of the last segment, left by a crash during
+     * an append, is zeroed out. A damaged record with whole records after it is not a torn
+     * append, and zeroing it would lose them, so the journal refuses to open instead.
+     */
+    public static Journal open(Path directory, int segmentSize, FsyncPolicy fsyncPolicy,
+                               long fsyncIntervalMillis) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be more than " + HEADER_SIZE + " bytes");
+        }
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        Journal journal = new Journal(directory, segmentSize, fsyncPolicy, fsyncIntervalMillis);
+        if (segments.isEmpty()) {
+            journal.map(0);
+        } else {
+            journal.map(index(segments.get(segments.size() - 1)));
+            try {
+                journal.recover();
+            } catch (RuntimeException e) {
+                journal.close();
+                throw e;
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Appends a record. It is visible to {@link #replay} at once but only durable as the
+     * fsync policy makes it; call {@link #commit()} once the records of an operation are in.
+     */
+    public synchronized void append(byte type, byte[] payload) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        int length = HEADER_SIZE + payload.length;
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("Record of " + length + " bytes doesn't fit in a segment");
+        }
+        if (buffer.remaining() < length) {
+            rotate();
+        }
+        int position = buffer.position();
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + 8, type);
+        buffer.put(position + HEADER_SIZE, payload);
+        buffer.putInt(position, length);
+        buffer.position(position + length);
+    }
+
+    // Makes the records appended so far durable as the fsync policy says
+    public void commit() {
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            force();
+        }
+    }
+
+    // Forces the pages written since the last force to disk
+    public synchronized void force() {
+        if (closed) {
+            return;
+        }
+        int position = buffer.position();
+        if (position > forcedPosition) {
+            buffer.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+            forces++;
+        }
+    }
+
+    synchronized long forces() {
+        return forces;
+    }
+
+    /**
+     * Hands every record to the handler in append order. A damaged record anywhere but at the
+     * end of the last segment means records after it are lost, so it fails the replay.
+     */
+    public void replay(RecordHandler handler) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                int end = scan(mapped, handler);
+                if (i < segments.size() - 1 && !atEnd(mapped, end)) {
+                    throw new IllegalStateException("Journal segment " + segment + " is damaged at byte " + end);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            force();
+        }
+        closed = true;
+        channel.close();
+    }
+
+    private void map(long index) throws IOException {
+        segmentIndex = index;
+        channel = FileChannel.open(directory.resolve(String.format(PREFIX + "%010d" + SUFFIX, index)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        forcedPosition = 0;
+    }
+
+    private void rotate() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            force();
+        }
+        channel.close();
+        map(segmentIndex + 1);
+    }
+
+    private void recover() {
+        int end = scan(buffer, (type, payload) -> {
+        });
+        if (!atEnd(buffer, end)) {
+            int next = findRecord(buffer, end + 1);
+            if (next >= 0) {
+                throw new IllegalStateException("Journal segment " + segmentIndex + " is damaged at byte " + end
+                        + " but has a whole record at byte " + next);
+            }
+            for (int i = end; i < segmentSize; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+        buffer.position(end);
+        forcedPosition = end;
+    }
+
+    // Hands over the whole records from the start of a segment and returns where they end
+    private static int scan(ByteBuffer segment, RecordHandler handler) {
+        int position = 0;
+        int limit = segment.limit();
+        while (position + HEADER_SIZE <= limit) {
+            int length = segment.getInt(position);
+            if (length < HEADER_SIZE || length > limit - position || !checksumHolds(segment, position, length)) {
+                break;
+            }
+            handler.accept(segment.get(position + 8), segment.slice(position + HEADER_SIZE, length - HEADER_SIZE));
+            position += length;
+        }
+        return position;
+    }
+
+    // Searches byte by byte for a whole record at or after a position; -1 if there is none
+    private static int findRecord(ByteBuffer segment, int from) {
+        int limit = segment.limit();
+        for (int position = from; position + HEADER_SIZE <= limit; position++) {
+            int length = segment.getInt(position);
+            if (length >= HEADER_SIZE && length <= limit - position && checksumHolds(segment, position, length)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean checksumHolds(ByteBuffer segment, int position, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(segment.get(position + 8));
+        crc.update(segment.slice(position + HEADER_SIZE, length - HEADER_SIZE));
+        return (int) crc.getValue() == segment.getInt(position + 4);
+    }
+
+    // Whether the records of a segment end cleanly at a position rather than at a damaged record
+    private static boolean atEnd(ByteBuffer segment, int position) {
+        return position + HEADER_SIZE > segment.limit() || segment.getInt(position) == 0;
+    }
+
+    private void forceQuietly() {
+        try {
+            force();
+        } catch (RuntimeException e) {
+            // The next run tries again from the same position
+        }
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static long index(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.eagle.journal;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+// Field encodings shared by the journal writer and the replayer
+final class JournalCodec {
+
+    private static final int NULL_LENGTH = -1;
+    private static final long NULL_SECONDS = Long.MIN_VALUE;
+
+    private JournalCodec() {
+    }
+
+    // An int byte count, -1 for null, then the UTF-8 bytes
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Epoch seconds, Long.MIN_VALUE for null, then the nanosecond and the offset in seconds
+    static void writeTimestamp(DataOutputStream out, OffsetDateTime value) throws IOException {
+        if (value == null) {
+            out.writeLong(NULL_SECONDS);
+            return;
+        }
+        out.writeLong(value.toEpochSecond());
+        out.writeInt(value.getNano());
+        out.writeInt(value.getOffset().getTotalSeconds());
+    }
+
+    static OffsetDateTime readTimestamp(ByteBuffer in) {
+        long seconds = in.getLong();
+        if (seconds == NULL_SECONDS) {
+            return null;
+        }
+        int nanos = in.getInt();
+        ZoneOffset offset = ZoneOffset.ofTotalSeconds(in.getInt());
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(seconds, nanos), offset);
+    }
+}
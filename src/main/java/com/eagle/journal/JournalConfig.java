@@ -0,0 +1,49 @@
+package com.eagle.journal;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Opens the ledger journal with eagle.journal.* and replays it before the application takes requests
+@Configuration
+public class JournalConfig {
+
+    @Bean
+    public LedgerJournal ledgerJournal(
+            @Value("${eagle.journal.enabled:false}") boolean enabled,
+            @Value("${eagle.journal.directory:data/journal}") String directory,
+            @Value("${eagle.journal.segment-size:64MB}") DataSize segmentSize,
+            @Value("${eagle.journal.fsync:batch}") String fsync,
+            @Value("${eagle.journal.fsync-interval-ms:10}") long fsyncIntervalMillis) throws IOException {
+        if (!enabled) {
+            return LedgerJournal.NONE;
+        }
+        Journal.FsyncPolicy fsyncPolicy = Journal.FsyncPolicy.valueOf(fsync.toUpperCase(Locale.ROOT));
+        return new MappedLedgerJournal(Journal.open(Path.of(directory), Math.toIntExact(segmentSize.toBytes()),
+                fsyncPolicy, fsyncIntervalMillis));
+    }
+
+    // Runs once every singleton exists, before the web server starts and scheduled jobs run
+    @Bean
+    public SmartInitializingSingleton journalReplay(LedgerJournal ledgerJournal, EntityManager entityManager,
+                                                    PlatformTransactionManager transactionManager) {
+        return () -> {
+            if (ledgerJournal instanceof MappedLedgerJournal mappedLedgerJournal) {
+                try {
+                    mappedLedgerJournal.replayInto(new JournalReplayer(entityManager, transactionManager));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
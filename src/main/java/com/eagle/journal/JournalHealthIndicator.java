@@ -0,0 +1,31 @@
+package com.eagle.journal;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the journal down once it has lost a committed change, since a restart would then
+ * rebuild the database without it. A disabled journal has nothing to lose and is up.
+ */
+@Component
+public class JournalHealthIndicator implements HealthIndicator {
+
+    private final LedgerJournal ledgerJournal;
+
+    public JournalHealthIndicator(LedgerJournal ledgerJournal) {
+        this.ledgerJournal = ledgerJournal;
+    }
+
+    @Override
+    public Health health() {
+        if (!(ledgerJournal instanceof MappedLedgerJournal mappedLedgerJournal)) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        long lostRecords = mappedLedgerJournal.lostRecords();
+        return (lostRecords == 0 ? Health.up() : Health.down())
+                .withDetail("enabled", true)
+                .withDetail("lostRecords", lostRecords)
+                .build();
+    }
+}
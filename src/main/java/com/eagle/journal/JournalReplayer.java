@@ -0,0 +1,213 @@
+package com.eagle.journal;
+
+import com.eagle.model.AccountModel;
+import com.eagle.model.Money;
+import com.eagle.model.SequenceModel;
+import com.eagle.model.TransactionModel;
+import com.eagle.model.UserModel;
+import com.eagle.service.BalancePostingStrategy;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rebuilds the database from a journal by applying its records in order. Records are applied
+ * in chunks, one database transaction each, so the persistence context never holds more than
+ * a chunk of entities. Account balances are rebuilt from the posted transactions.
+ * <p>
+ * Account versions are restored last, since the replay's own updates bump them: each account
+ * gets the version journaled with its latest create or update plus one for every posting
+ * since. A batch of postings may have bumped the version only once, so the result is never
+ * below the version before the restart, and a version tag clients saw for an earlier state
+ * is never issued again.
+ */
+public class JournalReplayer {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<String, Long> versions = new HashMap<>();
+
+    private TransactionStatus chunk;
+    private long applied;
+
+    public JournalReplayer(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionManager = transactionManager;
+    }
+
+    // Returns the number of records applied
+    public long replay(Journal journal) throws IOException {
+        applied = 0;
+        versions.clear();
+        chunk = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        try {
+            journal.replay((type, payload) -> {
+                apply(type, payload);
+                if (++applied % CHUNK_SIZE == 0) {
+                    nextChunk();
+                }
+            });
+            nextChunk();
+            int restored = 0;
+            for (Map.Entry<String, Long> version : versions.entrySet()) {
+                entityManager.createQuery(
+                                "update AccountModel a set a.version = :version where a.accountNumber = :accountNumber")
+                        .setParameter("version", version.getValue())
+                        .setParameter("accountNumber", version.getKey())
+                        .executeUpdate();
+                if (++restored % CHUNK_SIZE == 0) {
+                    nextChunk();
+                }
+            }
+            transactionManager.commit(chunk);
+        } catch (RuntimeException | IOException e) {
+            if (!chunk.isCompleted()) {
+                transactionManager.rollback(chunk);
+            }
+            throw e;
+        }
+        return applied;
+    }
+
+    private void nextChunk() {
+        transactionManager.commit(chunk);
+        chunk = transactionManager.getTransaction(new DefaultTransactionDefinition());
+    }
+
+    private void apply(byte type, ByteBuffer in) {
+        switch (type) {
+            case LedgerJournal.ACCOUNT_CREATED -> {
+                AccountModel account = new AccountModel();
+                account.setAccountNumber(JournalCodec.readString(in));
+                account.setUserId(JournalCodec.readString(in));
+                account.setSortCode(JournalCodec.readString(in));
+                account.setName(JournalCodec.readString(in));
+                account.setAccountType(JournalCodec.readString(in));
+                account.setBalance(in.getLong());
+                account.setCurrency(JournalCodec.readString(in));
+                account.setCreatedTimestamp(JournalCodec.readTimestamp(in));
+                account.setUpdatedTimestamp(JournalCodec.readTimestamp(in));
+                versions.put(account.getAccountNumber(), in.getLong());
+                entityManager.persist(account);
+            }
+            case LedgerJournal.ACCOUNT_UPDATED -> {
+                AccountModel account = entityManager.find(AccountModel.class, JournalCodec.readString(in));
+                String name = JournalCodec.readString(in);
+                String accountType = JournalCodec.readString(in);
+                OffsetDateTime updatedTimestamp = JournalCodec.readTimestamp(in);
+                long version = in.getLong();
+                if (account != null) {
+                    versions.merge(account.getAccountNumber(), version,
+                            (counted, journaled) -> Math.max(counted + 1, journaled));
+                    account.setName(name);
+                    account.setAccountType(accountType);
+                    account.setUpdatedTimestamp(updatedTimestamp);
+                }
+            }
+            case LedgerJournal.ACCOUNT_DELETED -> {
+                String accountNumber = JournalCodec.readString(in);
+                versions.remove(accountNumber);
+                AccountModel account = entityManager.find(AccountModel.class, accountNumber);
+                if (account != null) {
+                    entityManager.remove(account);
+                }
+            }
+            case LedgerJournal.USER_SAVED -> saveUser(in);
+            case LedgerJournal.USER_DELETED -> {
+                UserModel user = entityManager.find(UserModel.class, JournalCodec.readString(in));
+                if (user != null) {
+                    entityManager.remove(user);
+                }
+            }
+            case LedgerJournal.TRANSACTION_POSTED -> {
+                TransactionModel transaction = new TransactionModel();
+                transaction.setId(JournalCodec.readString(in));
+                transaction.setAccountNumber(JournalCodec.readString(in));
+                transaction.setUserId(JournalCodec.readString(in));
+                transaction.setType(JournalCodec.readString(in));
+                transaction.setAmount(in.getLong());
+                transaction.setCurrency(JournalCodec.readString(in));
+                transaction.setReference(JournalCodec.readString(in));
+                transaction.setCreatedTimestamp(JournalCodec.readTimestamp(in));
+                entityManager.persist(transaction);
+
+                AccountModel account = entityManager.find(AccountModel.class, transaction.getAccountNumber());
+                if (account != null) {
+                    account.setBalance(Money.add(account.getBalance(), BalancePostingStrategy.signedAmount(transaction)));
+                    versions.computeIfPresent(account.getAccountNumber(), (accountNumber, version) -> version + 1);
+                }
+            }
+            case LedgerJournal.NUMBERS_RESERVED -> {
+                String name = JournalCodec.readString(in);
+                long nextValue = in.getLong();
+                SequenceModel sequence = entityManager.find(SequenceModel.class, name);
+                if (sequence == null) {
+                    entityManager.persist(new SequenceModel(name, nextValue));
+                } else if (nextValue > sequence.getNextValue()) {
+                    sequence.setNextValue(nextValue);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private void saveUser(ByteBuffer in) {
+        String id = JournalCodec.readString(in);
+        UserModel user = entityManager.find(UserModel.class, id);
+        boolean created = user == null;
+        if (created) {
+            user = new UserModel();
+        }
+        user.setName(JournalCodec.readString(in));
+        user.setPhoneNumber(JournalCodec.readString(in));
+        user.setEmail(JournalCodec.readString(in));
+        user.setCreatedTimestamp(JournalCodec.readTimestamp(in));
+        user.setUpdatedTimestamp(JournalCodec.readTimestamp(in));
+        UserModel.Address address = null;
+        if (in.get() != 0) {
+            address = new UserModel.Address();
+            address.setLine1(JournalCodec.readString(in));
+            address.setLine2(JournalCodec.readString(in));
+            address.setLine3(JournalCodec.readString(in));
+            address.setTown(JournalCodec.readString(in));
+            address.setCounty(JournalCodec.readString(in));
+            address.setPostcode(JournalCodec.readString(in));
+        }
+        user.setAddress(address);
+        if (created) {
+            insertUser(id, user);
+        }
+    }
+
+    // User IDs are generated on persist, so a journaled user is inserted with its ID as is
+    private void insertUser(String id, UserModel user) {
+        UserModel.Address address = user.getAddress() != null ? user.getAddress() : new UserModel.Address();
+        entityManager.createNativeQuery("""
+                        insert into users (id, name, phone_number, email, created_timestamp, updated_timestamp,
+                                           line1, line2, line3, town, county, postcode)
+                        values (?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8, ?9, ?10, ?11, ?12)""")
+                .setParameter(1, id)
+                .setParameter(2, user.getName())
+                .setParameter(3, user.getPhoneNumber())
+                .setParameter(4, user.getEmail())
+                .setParameter(5, user.getCreatedTimestamp())
+                .setParameter(6, user.getUpdatedTimestamp())
+                .setParameter(7, address.getLine1())
+                .setParameter(8, address.getLine2())
+                .setParameter(9, address.getLine3())
+                .setParameter(10, address.getTown())
+                .setParameter(11, address.getCounty())
+                .setParameter(12, address.getPostcode())
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,52 @@
+package com.eagle.journal;
+
+import com.eagle.model.AccountModel;
+import com.eagle.model.TransactionModel;
+import com.eagle.model.UserModel;
+
+/**
+ * Records every change to the ledger's accounts, users and transactions so the in-memory
+ * database can be rebuilt from the journal on startup. Changes made inside a database
+ * transaction are journaled once it commits; changes outside one are journaled at once.
+ */
+public interface LedgerJournal extends AutoCloseable {
+
+    // Record types; the payload layouts are in MappedLedgerJournal
+    byte ACCOUNT_CREATED = 1;
+    byte ACCOUNT_UPDATED = 2;
+    byte ACCOUNT_DELETED = 3;
+    byte USER_SAVED = 4;
+    byte USER_DELETED = 5;
+    byte TRANSACTION_POSTED = 6;
+    byte NUMBERS_RESERVED = 7;
+
+    // Journals nothing, for when the journal is disabled
+    LedgerJournal NONE = new LedgerJournal() {
+    };
+
+    default void accountCreated(AccountModel account) {
+    }
+
+    default void accountUpdated(AccountModel account) {
+    }
+
+    default void accountDeleted(String accountNumber) {
+    }
+
+    default void userSaved(UserModel user) {
+    }
+
+    default void userDeleted(String userId) {
+    }
+
+    default void transactionPosted(TransactionModel transaction) {
+    }
+
+    // A sequence has handed out every value below nextValue
+    default void numbersReserved(String sequenceName, long nextValue) {
+    }
+
+    @Override
+    default void close() {
+    }
+}
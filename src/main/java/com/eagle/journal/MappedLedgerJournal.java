@@ -0,0 +1,233 @@
+package com.eagle.journal;
+
+import com.eagle.model.AccountModel;
+import com.eagle.model.TransactionModel;
+import com.eagle.model.UserModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes ledger changes to a {@link Journal} as binary records, field by field in the order
+ * below, with strings and timestamps as in {@link JournalCodec}:
+ * <ul>
+ *     <li>ACCOUNT_CREATED: accountNumber, userId, sortCode, name, accountType, long balance,
+ *     currency, createdTimestamp, updatedTimestamp, long version</li>
+ *     <li>ACCOUNT_UPDATED: accountNumber, name, accountType, updatedTimestamp, long version</li>
+ *     <li>ACCOUNT_DELETED and USER_DELETED: the ID</li>
+ *     <li>USER_SAVED: id, name, phoneNumber, email, createdTimestamp, updatedTimestamp,
+ *     boolean hasAddress, then line1, line2, line3, town, county and postcode if it has</li>
+ *     <li>TRANSACTION_POSTED: id, accountNumber, userId, type, long amount, currency,
+ *     reference, createdTimestamp</li>
+ *     <li>NUMBERS_RESERVED: sequence name, long nextValue</li>
+ * </ul>
+ * Records are appended after the database transaction that made the changes commits, so
+ * rolled back changes never reach the journal, and all of a transaction's records share one
+ * journal commit. By then the change stands, so an append that fails is logged and counted
+ * rather than thrown: failing the request would only have the client retry a change that was
+ * made. The journal is degraded from then on, missing those records, and
+ * {@link JournalHealthIndicator} reports it down.
+ */
+public class MappedLedgerJournal implements LedgerJournal {
+
+    @FunctionalInterface
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(MappedLedgerJournal.class);
+
+    private final Journal journal;
+    private final AtomicLong lostRecords = new AtomicLong();
+
+    // Changes the replayer makes are already in the journal
+    private volatile Thread replayThread;
+
+    public MappedLedgerJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    // Rebuilds the database from the journal; returns the number of records applied
+    public long replayInto(JournalReplayer replayer) throws IOException {
+        replayThread = Thread.currentThread();
+        try {
+            return replayer.replay(journal);
+        } finally {
+            replayThread = null;
+        }
+    }
+
+    // Records of committed changes the journal failed to append
+    public long lostRecords() {
+        return lostRecords.get();
+    }
+
+    @Override
+    public void accountCreated(AccountModel account) {
+        append(ACCOUNT_CREATED, out -> {
+            JournalCodec.writeString(out, account.getAccountNumber());
+            JournalCodec.writeString(out, account.getUserId());
+            JournalCodec.writeString(out, account.getSortCode());
+            JournalCodec.writeString(out, account.getName());
+            JournalCodec.writeString(out, account.getAccountType());
+            out.writeLong(account.getBalance());
+            JournalCodec.writeString(out, account.getCurrency());
+            JournalCodec.writeTimestamp(out, account.getCreatedTimestamp());
+            JournalCodec.writeTimestamp(out, account.getUpdatedTimestamp());
+            out.writeLong(account.getVersion());
+        });
+    }
+
+    @Override
+    public void accountUpdated(AccountModel account) {
+        append(ACCOUNT_UPDATED, out -> {
+            JournalCodec.writeString(out, account.getAccountNumber());
+            JournalCodec.writeString(out, account.getName());
+            JournalCodec.writeString(out, account.getAccountType());
+            JournalCodec.writeTimestamp(out, account.getUpdatedTimestamp());
+            out.writeLong(account.getVersion());
+        });
+    }
+
+    @Override
+    public void accountDeleted(String accountNumber) {
+        append(ACCOUNT_DELETED, out -> JournalCodec.writeString(out, accountNumber));
+    }
+
+    @Override
+    public void userSaved(UserModel user) {
+        append(USER_SAVED, out -> {
+            JournalCodec.writeString(out, user.getId());
+            JournalCodec.writeString(out, user.getName());
+            JournalCodec.writeString(out, user.getPhoneNumber());
+            JournalCodec.writeString(out, user.getEmail());
+            JournalCodec.writeTimestamp(out, user.getCreatedTimestamp());
+            JournalCodec.writeTimestamp(out, user.getUpdatedTimestamp());
+            UserModel.Address address = user.getAddress();
+            out.writeBoolean(address != null);
+            if (address != null) {
+                JournalCodec.writeString(out, address.getLine1());
+                JournalCodec.writeString(out, address.getLine2());
+                JournalCodec.writeString(out, address.getLine3());
+                JournalCodec.writeString(out, address.getTown());
+                JournalCodec.writeString(out, address.getCounty());
+                JournalCodec.writeString(out, address.getPostcode());
+            }
+        });
+    }
+
+    @Override
+    public void userDeleted(String userId) {
+        append(USER_DELETED, out -> JournalCodec.writeString(out, userId));
+    }
+
+    @Override
+    public void transactionPosted(TransactionModel transaction) {
+        append(TRANSACTION_POSTED, out -> {
+            JournalCodec.writeString(out, transaction.getId());
+            JournalCodec.writeString(out, transaction.getAccountNumber());
+            JournalCodec.writeString(out, transaction.getUserId());
+            JournalCodec.writeString(out, transaction.getType());
+            out.writeLong(transaction.getAmount());
+            JournalCodec.writeString(out, transaction.getCurrency());
+            JournalCodec.writeString(out, transaction.getReference());
+            JournalCodec.writeTimestamp(out, transaction.getCreatedTimestamp());
+        });
+    }
+
+    @Override
+    public void numbersReserved(String sequenceName, long nextValue) {
+        append(NUMBERS_RESERVED, out -> {
+            JournalCodec.writeString(out, sequenceName);
+            out.writeLong(nextValue);
+        });
+    }
+
+    @Override
+    public void close() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(byte type, Encoder encoder) {
+        if (Thread.currentThread() == replayThread) {
+            return;
+        }
+        // Encoded now, while the entity still holds the state being committed
+        byte[] payload = encode(encoder);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingRecords().add(type, payload);
+        } else {
+            write(List.of(type), List.of(payload));
+        }
+    }
+
+    // The changes are already committed, so a failure is recorded, never thrown
+    private void write(List<Byte> types, List<byte[]> payloads) {
+        try {
+            for (int i = 0; i < types.size(); i++) {
+                journal.append(types.get(i), payloads.get(i));
+            }
+            journal.commit();
+        } catch (IOException | RuntimeException e) {
+            lostRecords.addAndGet(types.size());
+            log.error("Journal append failed after commit; {} committed record(s) are missing from the journal",
+                    types.size(), e);
+        }
+    }
+
+    // The records of the current database transaction, registered to be written when it commits
+    private PendingRecords pendingRecords() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingRecords pending && pending.owner == this) {
+                return pending;
+            }
+        }
+        PendingRecords pending = new PendingRecords(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    // A batch of postings in one database transaction shares one journal commit
+    private static final class PendingRecords implements TransactionSynchronization {
+        private final MappedLedgerJournal owner;
+        private final List<Byte> types = new ArrayList<>();
+        private final List<byte[]> payloads = new ArrayList<>();
+
+        PendingRecords(MappedLedgerJournal owner) {
+            this.owner = owner;
+        }
+
+        void add(byte type, byte[] payload) {
+            types.add(type);
+            payloads.add(payload);
+        }
+
+        @Override
+        public void afterCommit() {
+            owner.write(types, payloads);
+        }
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            encoder.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,23 @@
+package com.eagle.journal;
+
+import com.eagle.model.TransactionModel;
+import jakarta.persistence.PostPersist;
+
+/**
+ * Journals every transaction the persistence context inserts, whichever posting strategy or
+ * import path saved it. Hibernate gets instances from the Spring bean factory, so the journal
+ * is injected.
+ */
+public class TransactionJournalListener {
+
+    private final LedgerJournal ledgerJournal;
+
+    public TransactionJournalListener(LedgerJournal ledgerJournal) {
+        this.ledgerJournal = ledgerJournal;
+    }
+
+    @PostPersist
+    void posted(TransactionModel transaction) {
+        ledgerJournal.transactionPosted(transaction);
+    }
+}
@@ -1,10 +1,27 @@
 package com.eagle.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.time.OffsetDateTime;
 
 @Entity
+@Table(name = "accounts", indexes = {
+        // Owner's accounts in account number order; covers the account number lookup for tokens
+        @Index(name = "idx_account_user_account_number", columnList = "user_id, account_number")
+})
+// Second-level cached; entity updates refresh the entry on commit, while the single-statement
+// writes in AccountWrites evict just the account they change
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "accounts")
 public class AccountModel {
     @Id
     private String accountNumber; // 6-digit unique number followed by 01
@@ -14,11 +31,16 @@ public class AccountModel {
     private String sortCode;
     private String name;
     private String accountType;
-    private double balance;
+    @JsonSerialize(using = Money.Serializer.class)
+    private long balance; // In pence
     private String currency;
     private OffsetDateTime createdTimestamp;
     private OffsetDateTime updatedTimestamp;
 
+    @Version
+    @JsonIgnore
+    private long version; // Bumped on every update, used for optimistic locking
+
     // Getters and Setters
 
     public String getAccountNumber() { return accountNumber; }
@@ -36,8 +58,8 @@ public class AccountModel {
     public String getAccountType() { return accountType; }
     public void setAccountType(String accountType) { this.accountType = accountType; }
 
-    public double getBalance() { return balance; }
-    public void setBalance(double balance) { this.balance = balance; }
+    public long getBalance() { return balance; }
+    public void setBalance(long balance) { this.balance = balance; }
 
     public String getCurrency() { return currency; }
     public void setCurrency(String currency) { this.currency = currency; }
@@ -47,4 +69,7 @@ public class AccountModel {
 
     public OffsetDateTime getUpdatedTimestamp() { return updatedTimestamp; }
     public void setUpdatedTimestamp(OffsetDateTime updatedTimestamp) { this.updatedTimestamp = updatedTimestamp; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
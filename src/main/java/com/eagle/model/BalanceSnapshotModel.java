@@ -0,0 +1,57 @@
+package com.eagle.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.OffsetDateTime;
+
+/**
+ * Balance of an account after every transaction up to and including {@code lastTransactionId}.
+ * Snapshots are immutable; a balance at any point is the latest snapshot before it plus the
+ * transactions after it.
+ */
+@Entity
+@Table(name = "balance_snapshots", indexes = {
+        // Latest snapshot for compaction; unique so two instances can't snapshot the same range
+        @Index(name = "idx_snapshots_account_last_transaction", columnList = "account_number, last_transaction_id", unique = true),
+        // Latest snapshot at or before a point in time
+        @Index(name = "idx_snapshots_account_as_of", columnList = "account_number, as_of_timestamp")
+})
+public class BalanceSnapshotModel {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String accountNumber;
+    private String lastTransactionId; // Transactions are included up to this ID, in ID order
+    private long balance; // In pence
+    private long transactionCount; // Transactions included since the account was opened
+    private OffsetDateTime asOfTimestamp; // Latest createdTimestamp among the included transactions
+    private OffsetDateTime createdTimestamp;
+
+    // Getters and Setters
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getAccountNumber() { return accountNumber; }
+    public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+
+    public String getLastTransactionId() { return lastTransactionId; }
+    public void setLastTransactionId(String lastTransactionId) { this.lastTransactionId = lastTransactionId; }
+
+    public long getBalance() { return balance; }
+    public void setBalance(long balance) { this.balance = balance; }
+
+    public long getTransactionCount() { return transactionCount; }
+    public void setTransactionCount(long transactionCount) { this.transactionCount = transactionCount; }
+
+    public OffsetDateTime getAsOfTimestamp() { return asOfTimestamp; }
+    public void setAsOfTimestamp(OffsetDateTime asOfTimestamp) { this.asOfTimestamp = asOfTimestamp; }
+
+    public OffsetDateTime getCreatedTimestamp() { return createdTimestamp; }
+    public void setCreatedTimestamp(OffsetDateTime createdTimestamp) { this.createdTimestamp = createdTimestamp; }
+}
@@ -0,0 +1,167 @@
+package com.eagle.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Money amounts are held as a {@code long} number of pence, so posting arithmetic and
+ * comparisons are exact and allocation-free. On the wire they stay decimal numbers with
+ * two decimal places, e.g. {@code 1000.00}, as in the OpenAPI spec.
+ */
+public final class Money {
+
+    // Longest formatted amount: sign, 17 digits, decimal point and 2 fraction digits
+    private static final int MAX_CHARS = 21;
+
+    private Money() {
+    }
+
+    public static long add(long balance, long amount) {
+        return Math.addExact(balance, amount);
+    }
+
+    public static long subtract(long balance, long amount) {
+        return Math.subtractExact(balance, amount);
+    }
+
+    // Whether a balance is enough to pay out an amount
+    public static boolean covers(long balance, long amount) {
+        return balance >= amount;
+    }
+
+    // Convert an exact decimal amount to pence, rejecting fractions of a penny
+    public static long toPence(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long pence) {
+        return BigDecimal.valueOf(pence, 2);
+    }
+
+    // Parse a plain decimal such as "10", "10.5" or "1000.00" into pence
+    public static long parse(char[] chars, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+
+        long pounds = 0;
+        int integerDigits = 0;
+        while (i < end && chars[i] != '.') {
+            pounds = Math.addExact(Math.multiplyExact(pounds, 10), digit(chars[i++]));
+            integerDigits++;
+        }
+        if (integerDigits == 0) {
+            throw new NumberFormatException("Amount has no integer part");
+        }
+
+        long pence = 0;
+        int fractionDigits = 0;
+        if (i < end) {
+            i++; // skip the decimal point
+            while (i < end) {
+                int digit = digit(chars[i++]);
+                if (fractionDigits < 2) {
+                    pence = pence * 10 + digit;
+                } else if (digit != 0) {
+                    throw new NumberFormatException("Amount has more than two decimal places");
+                }
+                fractionDigits++;
+            }
+        }
+        if (fractionDigits == 1) {
+            pence *= 10;
+        }
+
+        // Built with its sign rather than negated at the end, which would overflow for Long.MIN_VALUE
+        return negative
+                ? Math.subtractExact(Math.multiplyExact(-pounds, 100), pence)
+                : Math.addExact(Math.multiplyExact(pounds, 100), pence);
+    }
+
+    public static long parse(String text) {
+        return parse(text.toCharArray(), 0, text.length());
+    }
+
+    // Write pence as a decimal with two places into the end of the buffer, returning the start offset
+    public static int format(long pence, char[] buffer) {
+        int pos = buffer.length;
+        boolean negative = pence < 0;
+        // Digits are taken off the signed value: negating Long.MIN_VALUE would overflow
+        long value = pence;
+        buffer[--pos] = digitChar(value);
+        value /= 10;
+        buffer[--pos] = digitChar(value);
+        value /= 10;
+        buffer[--pos] = '.';
+        do {
+            buffer[--pos] = digitChar(value);
+            value /= 10;
+        } while (value != 0);
+        if (negative) {
+            buffer[--pos] = '-';
+        }
+        return pos;
+    }
+
+    public static String toString(long pence) {
+        char[] buffer = new char[MAX_CHARS];
+        int start = format(pence, buffer);
+        return new String(buffer, start, buffer.length - start);
+    }
+
+    // The last decimal digit of a value of either sign
+    private static char digitChar(long value) {
+        return (char) ('0' + Math.abs(value % 10));
+    }
+
+    private static int digit(char c) {
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Amount is not a plain decimal number");
+        }
+        return c - '0';
+    }
+
+    // Writes pence as a JSON decimal number, e.g. 1050 -> 10.50
+    public static class Serializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long pence, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            char[] buffer = new char[MAX_CHARS];
+            int start = format(pence, buffer);
+            gen.writeNumber(buffer, start, buffer.length - start);
+        }
+    }
+
+    // Reads a JSON decimal number into pence, e.g. 10.5 -> 1050
+    public static class Deserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+                return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+            }
+            try {
+                return parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            } catch (NumberFormatException | ArithmeticException e) {
+                // Exponent notation and the like: fall back to an exact decimal conversion
+                try {
+                    return toPence(p.getDecimalValue());
+                } catch (ArithmeticException inexact) {
+                    throw InvalidFormatException.from(p, "Amount must have at most two decimal places",
+                            p.getText(), Long.class);
+                }
+            }
+        }
+    }
+}
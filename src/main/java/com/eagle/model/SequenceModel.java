@@ -0,0 +1,31 @@
+package com.eagle.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Persistent counter from which instances reserve blocks of numbers
+@Entity
+@Table(name = "sequences")
+public class SequenceModel {
+    @Id
+    private String name;
+
+    private long nextValue; // First value not yet reserved by any instance
+
+    protected SequenceModel() {
+    }
+
+    public SequenceModel(String name, long nextValue) {
+        this.name = name;
+        this.nextValue = nextValue;
+    }
+
+    // Getters and Setters
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public long getNextValue() { return nextValue; }
+    public void setNextValue(long nextValue) { this.nextValue = nextValue; }
+}
@@ -1,17 +1,32 @@
 package com.eagle.model;
 
+import com.eagle.journal.TransactionJournalListener;
+import com.eagle.service.TransactionStreamListener;
+import org.springframework.data.domain.Persistable;
+
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "transactions")
-public class TransactionModel {
+@Table(name = "transactions", indexes = {
+        // Keyset pagination: seek to (accountNumber, id) and read forward
+        @Index(name = "idx_transactions_account_id", columnList = "account_number, id"),
+        // Time range reads over one account's history
+        @Index(name = "idx_transactions_account_created", columnList = "account_number, created_timestamp")
+})
+@EntityListeners({TransactionJournalListener.class, TransactionStreamListener.class})
+public class TransactionModel implements Persistable<String> {
     @Id
     private String id; // ^tan-[A-Za-z0-9]+$
 
-    private double amount; // 0.00 - 10000.00
+    private long amount; // In pence, 0 - 1000000
     private String currency; // "GBP"
     private String type; // "deposit" or "withdrawal"
     private String reference;
@@ -19,8 +34,25 @@ public class TransactionModel {
     private String accountNumber; // ^acc-[A-Za-z0-9]+$
     private OffsetDateTime createdTimestamp;
 
+    // Transactions are never updated, so a new one is persisted straight away instead of
+    // merged, which would cost a select per row and break JDBC insert batching
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
     // Getters and Setters
 
+    @Override
     public String getId() {
         return id;
     }
@@ -29,11 +61,11 @@ public class TransactionModel {
         this.id = id;
     }
 
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
 
@@ -3,9 +3,16 @@ package com.eagle.model;
 import java.time.OffsetDateTime;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity // This annotation indicates that this class is a JPA entity
-@Table(name = "users") // This annotation specifies the table name in the database
+@Table(name = "users", indexes = { // This annotation specifies the table name in the database
+        // Login looks users up by email, which must be unique
+        @Index(name = "idx_users_email", columnList = "email", unique = true)
+})
+@Cacheable // Second-level cached; the detail update and delete in UserWrites evict just the user they change
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class UserModel {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -17,7 +24,7 @@ public class UserModel {
 
     private String phoneNumber; // E.164 format, e.g. +1234567890
 
-    @Column(unique = true, nullable = false) // Ensures email is unique and not null
+    @Column(nullable = false) // Unique through idx_users_email
     private String email;
     private OffsetDateTime createdTimestamp;
     private OffsetDateTime updatedTimestamp;
@@ -1,13 +1,39 @@
 package com.eagle.repository;
 
 import com.eagle.model.AccountModel;
+import com.eagle.response.BankAccountResponse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends JpaRepository<AccountModel, String> {
+public interface AccountRepository extends JpaRepository<AccountModel, String>, AccountWrites {
     // Add custom queries if needed
     List<AccountModel> findAllByUserId(String userId);
-}
\ No newline at end of file
+
+    // Stops at the first matching row instead of loading the user's accounts
+    boolean existsByUserId(String userId);
+
+    // First page of an owner's accounts, selected straight into the response record
+    @Query("select new com.eagle.response.BankAccountResponse(a.accountNumber, a.sortCode, a.name, a.accountType, " +
+            "a.balance, a.currency, a.createdTimestamp, a.updatedTimestamp) " +
+            "from AccountModel a where a.userId = :userId order by a.accountNumber")
+    List<BankAccountResponse> findFirstPageByUserId(@Param("userId") String userId, Pageable page);
+
+    // Next page of an owner's accounts after the cursor's account number
+    @Query("select new com.eagle.response.BankAccountResponse(a.accountNumber, a.sortCode, a.name, a.accountType, " +
+            "a.balance, a.currency, a.createdTimestamp, a.updatedTimestamp) " +
+            "from AccountModel a where a.userId = :userId and a.accountNumber > :after order by a.accountNumber")
+    List<BankAccountResponse> findPageByUserIdAfter(@Param("userId") String userId,
+                                                    @Param("after") String after,
+                                                    Pageable page);
+
+    // Version counter alone, for answering conditional requests without loading the account
+    @Query("select a.version from AccountModel a where a.accountNumber = :accountNumber")
+    Optional<Long> findVersionByAccountNumber(@Param("accountNumber") String accountNumber);
+}
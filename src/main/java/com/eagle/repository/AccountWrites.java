@@ -0,0 +1,25 @@
+package com.eagle.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+// Single-statement account writes that keep the rest of the second-level cache intact, see CachedRowWrites
+public interface AccountWrites {
+
+    // Apply a balance change in a single statement, only if the balance covers the required amount
+    @Transactional
+    int applyBalanceDelta(String accountNumber, long delta, long required);
+
+    // Set a balance held in memory by a single writer, only if it is still the one stored
+    @Transactional
+    int replaceBalance(String accountNumber, long expected, long balance);
+
+    // Update the editable details without loading the account first
+    @Transactional
+    int updateDetails(String accountNumber, String name, String accountType, OffsetDateTime updatedTimestamp);
+
+    // Delete with a single statement instead of load-then-remove
+    @Transactional
+    int deleteAccount(String accountNumber);
+}
@@ -0,0 +1,46 @@
+package com.eagle.repository;
+
+import com.eagle.model.AccountModel;
+import jakarta.persistence.EntityManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+class AccountWritesImpl implements AccountWrites {
+
+    private final EntityManager entityManager;
+
+    AccountWritesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int applyBalanceDelta(String accountNumber, long delta, long required) {
+        return CachedRowWrites.execute(entityManager, AccountModel.class, accountNumber, List.of(), """
+                        update accounts set balance = balance + ?1, version = version + 1
+                        where account_number = ?2 and balance >= ?3""",
+                delta, accountNumber, required);
+    }
+
+    @Override
+    public int replaceBalance(String accountNumber, long expected, long balance) {
+        return CachedRowWrites.execute(entityManager, AccountModel.class, accountNumber, List.of(), """
+                        update accounts set balance = ?1, version = version + 1
+                        where account_number = ?2 and balance = ?3""",
+                balance, accountNumber, expected);
+    }
+
+    @Override
+    public int updateDetails(String accountNumber, String name, String accountType, OffsetDateTime updatedTimestamp) {
+        return CachedRowWrites.execute(entityManager, AccountModel.class, accountNumber, List.of(), """
+                        update accounts set name = ?1, account_type = ?2, updated_timestamp = ?3, version = version + 1
+                        where account_number = ?4""",
+                name, accountType, updatedTimestamp, accountNumber);
+    }
+
+    @Override
+    public int deleteAccount(String accountNumber) {
+        return CachedRowWrites.execute(entityManager, AccountModel.class, accountNumber, List.of(),
+                "delete from accounts where account_number = ?1", accountNumber);
+    }
+}
@@ -0,0 +1,23 @@
+package com.eagle.repository;
+
+import com.eagle.model.BalanceSnapshotModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshotModel, Long> {
+
+    // Snapshot covering the most transactions, where compaction carries on from
+    Optional<BalanceSnapshotModel> findFirstByAccountNumberOrderByLastTransactionIdDesc(String accountNumber);
+
+    // Latest snapshot whose transactions were all created at or before the given time
+    Optional<BalanceSnapshotModel> findFirstByAccountNumberAndAsOfTimestampLessThanEqualOrderByAsOfTimestampDesc(
+            String accountNumber, OffsetDateTime asOf);
+
+    // Earliest snapshot that includes a transaction created after the given time
+    Optional<BalanceSnapshotModel> findFirstByAccountNumberAndAsOfTimestampGreaterThanOrderByAsOfTimestampAsc(
+            String accountNumber, OffsetDateTime asOf);
+}
@@ -0,0 +1,57 @@
+package com.eagle.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Single-row writes for second-level cached entities. A JPQL update or delete clears the
+ * entity's whole cache region, and every cached query over its table, so under a steady
+ * stream of postings the cache would hold next to nothing. These run as native statements
+ * synchronized on no query space, and evict only the written row and the query regions the
+ * change can affect: once straight away and again when the transaction completes, as
+ * Hibernate does for its own bulk statements, so a read racing the write can't leave the
+ * old state cached.
+ * <p>
+ * Synchronizing on no query space also means Hibernate doesn't auto-flush before the
+ * statement, so the persistence context is flushed explicitly first: a pending change to a
+ * managed entity would otherwise be written after the statement, over the row it changed.
+ */
+final class CachedRowWrites {
+
+    private CachedRowWrites() {
+    }
+
+    static int execute(EntityManager entityManager, Class<?> entityClass, Object id, List<String> queryRegions,
+                       String sql, Object... parameters) {
+        entityManager.flush();
+        NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        // A query space no entity or cached query uses, so Hibernate invalidates nothing itself
+        query.addSynchronizedQuerySpace("");
+        for (int i = 0; i < parameters.length; i++) {
+            query.setParameter(i + 1, parameters[i]);
+        }
+        int written = query.executeUpdate();
+
+        Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        Runnable evict = () -> {
+            cache.evictEntityData(entityClass, id);
+            queryRegions.forEach(cache::evictQueryRegion);
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+        return written;
+    }
+}
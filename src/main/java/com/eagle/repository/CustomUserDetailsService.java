@@ -1,10 +1,16 @@
 package com.eagle.repository;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
-import com.eagle.model.UserModel;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
 import java.util.Collections;
 
 @Service
@@ -12,16 +18,41 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository repo;
 
-    public CustomUserDetailsService(UserRepository repo) {
+    // Principals of recently seen users, so authenticated requests don't each look the user up
+    private final Cache<String, UserDetails> principals;
+
+    public CustomUserDetailsService(UserRepository repo,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${eagle.principal-cache.maximum-size:10000}") long maximumSize,
+                                    @Value("${eagle.principal-cache.ttl:5m}") Duration ttl) {
         this.repo = repo;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Exposes cache.gets{result=hit|miss}, cache.evictions and cache.size tagged cache=principals
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
     }
     
     @Override
     public UserDetails loadUserByUsername(String id) throws UsernameNotFoundException {
-        UserModel user = repo.findById(id)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        // A missing user throws and is not cached
+        return principals.get(id, this::loadFromRepository);
+    }
+
+    // Drop a cached principal after the user has been changed or deleted
+    public void evict(String id) {
+        principals.invalidate(id);
+    }
+
+    private UserDetails loadFromRepository(String id) {
+        // The principal only needs the ID, so check existence instead of loading the user
+        if (!repo.existsById(id)) {
+            throw new UsernameNotFoundException("User not found");
+        }
 
         return new org.springframework.security.core.userdetails.User(
-                user.getId(), "{noop}dummy-password", Collections.emptyList());
+                id, "{noop}dummy-password", Collections.emptyList());
     }
 }
@@ -0,0 +1,7 @@
+package com.eagle.repository;
+
+import java.time.OffsetDateTime;
+
+// Aggregate of a run of an account's transactions: net balance change, count and latest creation time
+public record LedgerTail(long balanceChange, long transactionCount, OffsetDateTime lastCreatedTimestamp) {
+}
@@ -0,0 +1,69 @@
+package com.eagle.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Exports the second-level cache hits, misses and hit ratio of each region, tagged with the
+ * region name: eagle.cache.gets{result=hit|miss} and eagle.cache.hit_ratio.
+ */
+@Component
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    private static final List<String> ENTITY_REGIONS = List.of("accounts", "users");
+    private static final List<String> QUERY_REGIONS = List.of("user-ids-by-email");
+
+    private final Statistics statistics;
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : ENTITY_REGIONS) {
+            bind(registry, region, statistics -> statistics.getDomainDataRegionStatistics(region));
+        }
+        for (String region : QUERY_REGIONS) {
+            // Query regions only exist once a query has used them
+            bind(registry, region, statistics -> statistics.getQueryRegionStatistics(region));
+        }
+    }
+
+    private void bind(MeterRegistry registry, String region, Function<Statistics, CacheRegionStatistics> lookup) {
+        FunctionCounter.builder("eagle.cache.gets", statistics, s -> hits(lookup.apply(s)))
+                .tags("region", region, "result", "hit")
+                .description("Second-level cache lookups")
+                .register(registry);
+        FunctionCounter.builder("eagle.cache.gets", statistics, s -> misses(lookup.apply(s)))
+                .tags("region", region, "result", "miss")
+                .description("Second-level cache lookups")
+                .register(registry);
+        Gauge.builder("eagle.cache.hit_ratio", statistics, s -> {
+                    CacheRegionStatistics regionStatistics = lookup.apply(s);
+                    double lookups = hits(regionStatistics) + misses(regionStatistics);
+                    return lookups == 0 ? Double.NaN : hits(regionStatistics) / lookups;
+                })
+                .tag("region", region)
+                .description("Share of second-level cache lookups that were hits since startup")
+                .register(registry);
+    }
+
+    private static double hits(CacheRegionStatistics regionStatistics) {
+        return regionStatistics == null ? 0 : regionStatistics.getHitCount();
+    }
+
+    private static double misses(CacheRegionStatistics regionStatistics) {
+        return regionStatistics == null ? 0 : regionStatistics.getMissCount();
+    }
+}
@@ -0,0 +1,20 @@
+package com.eagle.repository;
+
+import com.eagle.model.SequenceModel;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SequenceRepository extends JpaRepository<SequenceModel, String> {
+
+    // Row lock held until the reserving transaction commits, serialising reservations across instances
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from SequenceModel s where s.name = :name")
+    Optional<SequenceModel> findForUpdate(@Param("name") String name);
+}
@@ -1,12 +1,94 @@
 package com.eagle.repository;
 
 import com.eagle.model.TransactionModel;
+import com.eagle.response.TransactionResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<TransactionModel, String> {
+
+    // Constructor arguments of TransactionResponse, in order
+    String RESPONSE_COLUMNS = "t.id, t.amount, t.currency, t.type, t.reference, t.userId, t.createdTimestamp";
+
+    // Balance change of a transaction: deposits add, withdrawals subtract
+    String SIGNED_AMOUNT = "case when lower(t.type) = 'withdrawal' then -t.amount else t.amount end";
+
     List<TransactionModel> findAllByAccountNumber(String accountNumber);
-}
\ No newline at end of file
+
+    // Net change of the transactions after a snapshot's last ID that were created by the given time
+    @Query("select coalesce(sum(" + SIGNED_AMOUNT + "), 0) from TransactionModel t " +
+            "where t.accountNumber = :accountNumber and t.id > :afterId and t.createdTimestamp <= :asOf")
+    long sumBalanceChangeAfter(@Param("accountNumber") String accountNumber,
+                               @Param("afterId") String afterId,
+                               @Param("asOf") OffsetDateTime asOf);
+
+    // As above, reading no further than throughId, the last transaction of the next snapshot
+    @Query("select coalesce(sum(" + SIGNED_AMOUNT + "), 0) from TransactionModel t " +
+            "where t.accountNumber = :accountNumber and t.id > :afterId and t.id <= :throughId " +
+            "and t.createdTimestamp <= :asOf")
+    long sumBalanceChangeBetween(@Param("accountNumber") String accountNumber,
+                                 @Param("afterId") String afterId,
+                                 @Param("throughId") String throughId,
+                                 @Param("asOf") OffsetDateTime asOf);
+
+    // Aggregate of the transactions in (afterId, throughId], for writing a snapshot
+    @Query("select new com.eagle.repository.LedgerTail(coalesce(sum(" + SIGNED_AMOUNT + "), 0), count(t), " +
+            "max(t.createdTimestamp)) from TransactionModel t " +
+            "where t.accountNumber = :accountNumber and t.id > :afterId and t.id <= :throughId")
+    LedgerTail summarize(@Param("accountNumber") String accountNumber,
+                         @Param("afterId") String afterId,
+                         @Param("throughId") String throughId);
+
+    // IDs after afterId and before beforeId in order; page with an offset to find the Nth one
+    @Query("select t.id from TransactionModel t " +
+            "where t.accountNumber = :accountNumber and t.id > :afterId and t.id < :beforeId order by t.id")
+    List<String> findIdsBetween(@Param("accountNumber") String accountNumber,
+                                @Param("afterId") String afterId,
+                                @Param("beforeId") String beforeId,
+                                Pageable page);
+
+    // Accounts with transactions in an ID range, read through the primary key
+    @Query("select distinct t.accountNumber from TransactionModel t where t.id > :afterId and t.id < :beforeId")
+    List<String> findAccountNumbersWithTransactionsBetween(@Param("afterId") String afterId,
+                                                           @Param("beforeId") String beforeId);
+
+    // Count without loading, e.g. to decide whether an account's history is long enough to compact
+    long countByAccountNumber(String accountNumber);
+
+    // One transaction of an account, selected straight into the response; empty if either doesn't exist
+    @Query("select new com.eagle.response.TransactionResponse(" + RESPONSE_COLUMNS + ") from TransactionModel t " +
+            "where t.id = :id and t.accountNumber = :accountNumber " +
+            "and exists (select a.accountNumber from AccountModel a where a.accountNumber = :accountNumber)")
+    Optional<TransactionResponse> findResponseByIdAndAccountNumber(@Param("id") String id,
+                                                                    @Param("accountNumber") String accountNumber);
+
+    // First page of an account's transactions; IDs are time-ordered, so this is creation order
+    @Query("select new com.eagle.response.TransactionResponse(" + RESPONSE_COLUMNS + ") from TransactionModel t " +
+            "where t.accountNumber = :accountNumber order by t.id")
+    List<TransactionResponse> findFirstPage(@Param("accountNumber") String accountNumber, Pageable page);
+
+    // Next page after the cursor's ID, seeking through the index instead of skipping an offset
+    @Query("select new com.eagle.response.TransactionResponse(" + RESPONSE_COLUMNS + ") from TransactionModel t " +
+            "where t.accountNumber = :accountNumber and t.id > :id order by t.id")
+    List<TransactionResponse> findPageAfter(@Param("accountNumber") String accountNumber,
+                                            @Param("id") String id,
+                                            Pageable page);
+
+    // Full history as a cursor-backed stream, read in fetch-size batches; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.eagle.response.TransactionResponse(" + RESPONSE_COLUMNS + ") from TransactionModel t " +
+            "where t.accountNumber = :accountNumber order by t.id")
+    Stream<TransactionResponse> streamAllByAccountNumber(@Param("accountNumber") String accountNumber);
+}
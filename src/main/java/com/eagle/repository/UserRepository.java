@@ -2,13 +2,26 @@ package com.eagle.repository;
 
 import java.util.Optional;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
 
 import com.eagle.model.UserModel;
 
 @Service
-public interface UserRepository extends JpaRepository<UserModel, String> {
+public interface UserRepository extends JpaRepository<UserModel, String>, UserWrites {
     // Additional query methods can be defined here if needed
     Optional<UserModel> findByEmail(String email);
+
+    // Only the ID, for issuing a token at login; cached until a user is added, deleted or changes email
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "user-ids-by-email")
+    })
+    @Query("select u.id from UserModel u where u.email = :email")
+    Optional<String> findIdByEmail(@Param("email") String email);
 }
@@ -0,0 +1,16 @@
+package com.eagle.repository;
+
+import com.eagle.model.UserModel;
+import org.springframework.transaction.annotation.Transactional;
+
+// Single-statement user writes that keep the rest of the second-level cache intact, see CachedRowWrites
+public interface UserWrites {
+
+    // Write every editable field of an already loaded user, without loading it again
+    @Transactional
+    int updateDetails(UserModel user);
+
+    // Delete with a single statement instead of load-then-remove
+    @Transactional
+    int deleteUser(String id);
+}
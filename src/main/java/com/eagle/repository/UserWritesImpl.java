@@ -0,0 +1,36 @@
+package com.eagle.repository;
+
+import com.eagle.model.UserModel;
+import jakarta.persistence.EntityManager;
+
+import java.util.List;
+
+class UserWritesImpl implements UserWrites {
+
+    // Cached user IDs by email, which an email change or a deletion makes stale
+    private static final List<String> EMAIL_QUERIES = List.of("user-ids-by-email");
+
+    private final EntityManager entityManager;
+
+    UserWritesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int updateDetails(UserModel user) {
+        UserModel.Address address = user.getAddress() != null ? user.getAddress() : new UserModel.Address();
+        return CachedRowWrites.execute(entityManager, UserModel.class, user.getId(), EMAIL_QUERIES, """
+                        update users set name = ?1, phone_number = ?2, email = ?3, updated_timestamp = ?4,
+                                         line1 = ?5, line2 = ?6, line3 = ?7, town = ?8, county = ?9, postcode = ?10
+                        where id = ?11""",
+                user.getName(), user.getPhoneNumber(), user.getEmail(), user.getUpdatedTimestamp(),
+                address.getLine1(), address.getLine2(), address.getLine3(), address.getTown(),
+                address.getCounty(), address.getPostcode(), user.getId());
+    }
+
+    @Override
+    public int deleteUser(String id) {
+        return CachedRowWrites.execute(entityManager, UserModel.class, id, EMAIL_QUERIES,
+                "delete from users where id = ?1", id);
+    }
+}
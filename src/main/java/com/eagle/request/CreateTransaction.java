@@ -1,16 +1,22 @@
 package com.eagle.request;
 
-import jakarta.validation.constraints.DecimalMax;
-import jakarta.validation.constraints.DecimalMin;
+import com.eagle.model.Money;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 
 public class CreateTransaction {
     @NotNull
-    @DecimalMin(value = "0.00")
-    @DecimalMax(value = "10000.00")
-    private Double amount;
+    @Min(value = 0, message = "must be greater than or equal to 0.00")
+    @Max(value = 1_000_000, message = "must be less than or equal to 10000.00")
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private Long amount; // In pence, sent as a decimal with up to two places
 
     @NotBlank
     @Pattern(regexp = "GBP")
@@ -23,8 +29,8 @@ public class CreateTransaction {
     private String reference;
 
     // Getters and Setters
-    public Double getAmount() { return amount; }
-    public void setAmount(Double amount) { this.amount = amount; }
+    public Long getAmount() { return amount; }
+    public void setAmount(Long amount) { this.amount = amount; }
 
     public String getCurrency() { return currency; }
     public void setCurrency(String currency) { this.currency = currency; }
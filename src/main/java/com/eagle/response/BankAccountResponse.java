@@ -0,0 +1,18 @@
+package com.eagle.response;
+
+import com.eagle.model.Money;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.time.OffsetDateTime;
+
+// Read-only account view selected straight into a record, without loading managed entities
+public record BankAccountResponse(
+        String accountNumber,
+        String sortCode,
+        String name,
+        String accountType,
+        @JsonSerialize(using = Money.Serializer.class) long balance, // In pence
+        String currency,
+        OffsetDateTime createdTimestamp,
+        OffsetDateTime updatedTimestamp) {
+}
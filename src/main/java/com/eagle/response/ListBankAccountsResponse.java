@@ -0,0 +1,34 @@
+package com.eagle.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+public class ListBankAccountsResponse {
+    private List<BankAccountResponse> accounts;
+
+    // Cursor for the next page, absent on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public ListBankAccountsResponse(List<BankAccountResponse> accounts, String nextCursor) {
+        this.accounts = accounts;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<BankAccountResponse> getAccounts() {
+        return accounts;
+    }
+
+    public void setAccounts(List<BankAccountResponse> accounts) {
+        this.accounts = accounts;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,14 +1,25 @@
 package com.eagle.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 public class ListTransactionsResponse {
     private List<TransactionResponse> transactions;
 
+    // Cursor for the next page, absent on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
     public ListTransactionsResponse(List<TransactionResponse> responses) {
         this.transactions = responses;
     }
 
+    public ListTransactionsResponse(List<TransactionResponse> responses, String nextCursor) {
+        this.transactions = responses;
+        this.nextCursor = nextCursor;
+    }
+
     public List<TransactionResponse> getTransactions() {
         return transactions;
     }
@@ -16,4 +27,12 @@ public class ListTransactionsResponse {
     public void setTransactions(List<TransactionResponse> transactions) {
         this.transactions = transactions;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.eagle.response;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque pagination cursor: the id of the last transaction on a page
+public record TransactionCursor(String id) {
+
+    public static TransactionCursor of(TransactionResponse transaction) {
+        return new TransactionCursor(transaction.getId());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null if the value isn't a cursor this API produced
+    public static TransactionCursor decode(String value) {
+        try {
+            String id = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            return id.matches("^tan-[A-Za-z0-9]+$") ? new TransactionCursor(id) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
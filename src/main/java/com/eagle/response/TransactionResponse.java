@@ -1,16 +1,35 @@
 package com.eagle.response;
 
+import com.eagle.model.Money;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import java.time.OffsetDateTime;
 
 public class TransactionResponse {
     private String id;
-    private double amount;
+    @JsonSerialize(using = Money.Serializer.class)
+    private long amount; // In pence
     private String currency;
     private String type;
     private String reference;
     private String userId;
     private OffsetDateTime createdTimestamp;
 
+    public TransactionResponse() {
+    }
+
+    // Used by the repositories' constructor expressions to select rows straight into responses
+    public TransactionResponse(String id, long amount, String currency, String type, String reference,
+                               String userId, OffsetDateTime createdTimestamp) {
+        this.id = id;
+        this.amount = amount;
+        this.currency = currency;
+        this.type = type;
+        this.reference = reference;
+        this.userId = userId;
+        this.createdTimestamp = createdTimestamp;
+    }
+
     // Getters and Setters
 
     public String getId() {
@@ -21,11 +40,11 @@ public class TransactionResponse {
         this.id = id;
     }
 
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
 
@@ -0,0 +1,20 @@
+package com.eagle.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts a handler to the owner of the account named by a path variable, checked by
+ * {@link AccountSecurity#hasAccessToAccount(String)} before the handler runs.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AccountAccess {
+
+    // Name of the path variable holding the account number
+    String value() default "accountNumber";
+}
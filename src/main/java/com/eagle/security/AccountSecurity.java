@@ -1,21 +1,21 @@
 package com.eagle.security;
 
-import com.eagle.repository.AccountRepository;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Component("accountSecurity")
 public class AccountSecurity {
 
-    private final AccountRepository accountRepository;
+    private final ResolvedEntities resolvedEntities;
 
-    public AccountSecurity(AccountRepository accountRepository) {
-        this.accountRepository = accountRepository;
+    public AccountSecurity(ResolvedEntities resolvedEntities) {
+        this.resolvedEntities = resolvedEntities;
     }
 
     public boolean hasAccessToAccount(String accountNumber) {
         String userId = SecurityContextHolder.getContext().getAuthentication().getName();
-        return accountRepository.findById(accountNumber)
+        // Checked against the account itself, which the second-level cache usually serves without a query
+        return resolvedEntities.account(accountNumber)
                 .map(account -> account.getUserId().equals(userId))
                 .orElse(true); // allow controller to handle not found
     }
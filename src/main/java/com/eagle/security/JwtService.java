@@ -1,49 +1,107 @@
 package com.eagle.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
-import org.springframework.security.core.userdetails.UserDetails;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtService {
 
+    static final Duration TOKEN_VALIDITY = Duration.ofHours(1);
+
     private final String secretKey = "ThisIsASecretKeyForJwtSigningAndShouldBeLongEnough";
 
+    // Built once: the key and parser are immutable and thread-safe
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+    // Recently verified tokens keyed by signature, each dropped when its token expires
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtService(@Value("${eagle.jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(verifiedCacheSize)
+                        .expireAfter(new UntilTokenExpires())
+                        .build()
+                : null;
+    }
+
+    /**
+     * Issues a token naming the user and nothing else about them: what the user owns can
+     * change while the token is valid, so ownership is always checked against the account.
+     */
     public String generateToken(String username) {
+        return generateToken(username, TOKEN_VALIDITY);
+    }
+
+    String generateToken(String username, Duration validity) {
         return Jwts.builder()
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60)) // 1 hour
-                .signWith(Keys.hmacShaKeyFor(secretKey.getBytes()), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + validity.toMillis()))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractUserId(String token) {
-        String userId = Jwts.parserBuilder()
-                .setSigningKey(secretKey.getBytes())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-        return userId;
+    /**
+     * Parses and verifies a token once, returning its claims. Throws a {@code JwtException}
+     * if the signature is invalid or the token has expired.
+     */
+    public VerifiedToken verify(String token) {
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        if (verifiedTokens != null) {
+            VerifiedToken cached = verifiedTokens.getIfPresent(signature);
+            // The whole token must match, not just the signature
+            if (cached != null && cached.token().equals(token) && !cached.isExpired()) {
+                return cached;
+            }
+        }
+
+        VerifiedToken verified = parse(token);
+        if (verifiedTokens != null) {
+            verifiedTokens.put(signature, verified);
+        }
+        return verified;
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String userId = extractUserId(token);
-        return (userId.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    // The signature check and claim parsing the cache exists to skip
+    VerifiedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return new VerifiedToken(token, claims.getSubject(), claims.getExpiration().toInstant());
     }
 
-    private boolean isTokenExpired(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey.getBytes())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration()
-                .before(new Date());
+    private static final class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String signature, VerifiedToken token, long currentTime) {
+            long millis = token.expiresAt().toEpochMilli() - Instant.now().toEpochMilli();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String signature, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(signature, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String signature, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,66 @@
+package com.eagle.security;
+
+import com.eagle.model.AccountModel;
+import com.eagle.model.UserModel;
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.UserRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.Optional;
+
+/**
+ * Account and user loaded for the current request. The ownership checks populate it and
+ * the controllers read from it, so each request fetches the entity it is about only once.
+ * Entities are detached: writes go through the repositories' update and delete queries.
+ */
+@Component
+@RequestScope
+public class ResolvedEntities {
+
+    private final AccountRepository accountRepository;
+    private final UserRepository userRepository;
+
+    private String accountNumber;
+    private Optional<AccountModel> account;
+
+    private String userId;
+    private Optional<UserModel> user;
+
+    public ResolvedEntities(AccountRepository accountRepository, UserRepository userRepository) {
+        this.accountRepository = accountRepository;
+        this.userRepository = userRepository;
+    }
+
+    public Optional<AccountModel> account(String accountNumber) {
+        if (account == null || !accountNumber.equals(this.accountNumber)) {
+            this.account = accountRepository.findById(accountNumber);
+            this.accountNumber = accountNumber;
+        }
+        return account;
+    }
+
+    // Reuses the account if this request already loaded it, otherwise checks without loading it
+    public boolean accountExists(String accountNumber) {
+        if (account != null && accountNumber.equals(this.accountNumber)) {
+            return account.isPresent();
+        }
+        return accountRepository.existsById(accountNumber);
+    }
+
+    // Version of the account, empty if it doesn't exist; reads only the version unless already loaded
+    public Optional<Long> accountVersion(String accountNumber) {
+        if (account != null && accountNumber.equals(this.accountNumber)) {
+            return account.map(AccountModel::getVersion);
+        }
+        return accountRepository.findVersionByAccountNumber(accountNumber);
+    }
+
+    public Optional<UserModel> user(String userId) {
+        if (user == null || !userId.equals(this.userId)) {
+            this.user = userRepository.findById(userId);
+            this.userId = userId;
+        }
+        return user;
+    }
+}
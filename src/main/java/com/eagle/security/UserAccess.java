@@ -0,0 +1,20 @@
+package com.eagle.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts a handler to the user named by a path variable, checked by
+ * {@link UserSecurity#hasAccessToUser(String)} before the handler runs.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UserAccess {
+
+    // Name of the path variable holding the user ID
+    String value() default "userId";
+}
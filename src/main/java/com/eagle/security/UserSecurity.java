@@ -3,21 +3,19 @@ package com.eagle.security;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
-import com.eagle.repository.UserRepository;
-
 @Component("userSecurity")
 public class UserSecurity {
 
-    private final UserRepository userRepository;
+    private final ResolvedEntities resolvedEntities;
 
-    public UserSecurity(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public UserSecurity(ResolvedEntities resolvedEntities) {
+        this.resolvedEntities = resolvedEntities;
     }
 
     public boolean hasAccessToUser(String userId) {
         String id = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findById(userId)
+        return resolvedEntities.user(userId)
                 .map(user -> user.getId().equals(id))
                 .orElse(true); // If user does not exist, allow controller to handle not found
     }    
-}
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.eagle.security;
+
+import java.time.Instant;
+
+// Claims of a token whose signature and expiry have been checked
+public record VerifiedToken(String token, String userId, Instant expiresAt) {
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,117 @@
+package com.eagle.service;
+
+import com.eagle.journal.LedgerJournal;
+import com.eagle.model.SequenceModel;
+import com.eagle.repository.SequenceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Issues account numbers in the {@code 01xxxxxx} space without probing the accounts table.
+ * Each instance reserves a block of sequence values from the shared counter row under a row
+ * lock, then hands them out from memory with an atomic increment. A value is turned into an
+ * account number by a keyed permutation of [0, 10^6), so every value gives a distinct number
+ * and consecutive accounts don't get consecutive numbers.
+ */
+@Service
+public class AccountNumberAllocator {
+
+    static final String SEQUENCE_NAME = "account-number";
+    static final int SPACE = 1_000_000;
+
+    private static final int HALF = 1_000;
+    private static final int[] ROUND_KEYS = {0x3C6EF372, 0x1B873593, 0x5BD1E995, 0x27D4EB2F};
+
+    // A reserved range [next, end); next runs past end once the block is used up
+    private record Block(AtomicLong next, long end) {
+    }
+
+    private final SequenceRepository sequenceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerJournal ledgerJournal;
+    private final int blockSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(new AtomicLong(), 0));
+    private final Object refillLock = new Object();
+
+    public AccountNumberAllocator(SequenceRepository sequenceRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  LedgerJournal ledgerJournal,
+                                  @Value("${eagle.account-number.block-size:100}") int blockSize) {
+        this.sequenceRepository = sequenceRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ledgerJournal = ledgerJournal;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns an account number no other call, on this or any instance sharing the database,
+     * has returned. Throws {@link IllegalStateException} once the space is used up.
+     */
+    public String next() {
+        while (true) {
+            Block block = current.get();
+            long value = block.next().getAndIncrement();
+            if (value < block.end()) {
+                return String.format("01%06d", permute(value));
+            }
+            // Only the thread that finds the block used up reserves the next one; the others retry with it
+            synchronized (refillLock) {
+                if (current.get() == block) {
+                    current.set(reserve());
+                }
+            }
+        }
+    }
+
+    private Block reserve() {
+        try {
+            return transactionTemplate.execute(status -> reserveInTransaction());
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the counter row first; it exists now
+            return transactionTemplate.execute(status -> reserveInTransaction());
+        }
+    }
+
+    private Block reserveInTransaction() {
+        SequenceModel sequence = sequenceRepository.findForUpdate(SEQUENCE_NAME)
+                .orElseGet(() -> sequenceRepository.saveAndFlush(new SequenceModel(SEQUENCE_NAME, 0)));
+        long start = sequence.getNextValue();
+        if (start >= SPACE) {
+            throw new IllegalStateException("Account number space is exhausted");
+        }
+        long end = Math.min(start + blockSize, SPACE);
+        sequence.setNextValue(end);
+        // Numbers from a reserved block are never reissued, even after a restart
+        ledgerJournal.numbersReserved(SEQUENCE_NAME, end);
+        return new Block(new AtomicLong(start), end);
+    }
+
+    // Four-round balanced Feistel network over the base-1000 halves; each round is invertible
+    static int permute(long value) {
+        int left = (int) (value / HALF);
+        int right = (int) (value % HALF);
+        for (int key : ROUND_KEYS) {
+            int mixed = Math.floorMod(round(right, key), HALF);
+            int nextRight = (left + mixed) % HALF;
+            left = right;
+            right = nextRight;
+        }
+        return left * HALF + right;
+    }
+
+    private static int round(int half, int key) {
+        int h = (half + 1) * 0x9E3779B1 ^ key;
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
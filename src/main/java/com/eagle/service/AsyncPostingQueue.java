@@ -0,0 +1,165 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accepts postings to be written later, for clients that poll for the outcome instead of
+ * holding a request open. Accounts are hashed to a fixed number of {@link BatchingWorker}s,
+ * each draining its own bounded queue through the {@link PostingBatchWriter}, so postings to
+ * one account are applied in order and batches never contend on an account. A full queue
+ * turns the posting away rather than blocking the caller.
+ * <p>
+ * A queued posting has no transaction ID or timestamp yet: both are assigned by the worker as
+ * it writes the batch, so a posting that waits in the queue still commits within the settle
+ * window that snapshots and sync cursors allow for. Until then it is tracked by a posting ID
+ * of its own. A queued posting's status is held until it is written, however many there are,
+ * since the queues bound them; the status of a written posting is kept for a while after,
+ * until it expires or is evicted to keep the cache within its size.
+ */
+@Service
+public class AsyncPostingQueue implements AutoCloseable {
+
+    public enum Admission {
+        ACCEPTED, QUEUE_FULL, SHUT_DOWN
+    }
+
+    // Posting ID is only set when the posting was accepted
+    public record Submission(Admission admission, String postingId) {
+    }
+
+    // Result is null while the posting is queued; failed means it couldn't be written at all
+    public record Status(TransactionModel transaction, PostingResult result, boolean failed) {
+
+        public boolean pending() {
+            return result == null && !failed;
+        }
+    }
+
+    private record Posting(String id, TransactionModel transaction) {
+    }
+
+    private final TransactionMapper transactionMapper;
+    private final List<BatchingWorker<Posting>> workers;
+    private final Map<String, Status> pending = new ConcurrentHashMap<>();
+    private final Cache<String, Status> statuses;
+    private final Counter rejected;
+    private volatile boolean closed;
+
+    public AsyncPostingQueue(PostingBatchWriter batchWriter,
+                             TransactionMapper transactionMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${eagle.posting.async.workers:2}") int workerCount,
+                             @Value("${eagle.posting.async.queue-size:10000}") int queueSize,
+                             @Value("${eagle.posting.max-batch-size:256}") int maxBatchSize,
+                             @Value("${eagle.posting.async.status-cache-size:100000}") long statusCacheSize,
+                             @Value("${eagle.posting.async.status-ttl:10m}") Duration statusTtl) {
+        this.transactionMapper = transactionMapper;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(statusCacheSize)
+                .expireAfterWrite(statusTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, statuses, "async-postings");
+        this.rejected = Counter.builder("eagle.posting.async.rejected")
+                .description("Postings turned away because the queue was full")
+                .register(meterRegistry);
+        BatchingWorker.Handler<Posting> handler = new BatchingWorker.Handler<>() {
+            @Override
+            public void write(List<Posting> batch) {
+                AsyncPostingQueue.this.write(batchWriter, batch);
+            }
+
+            // Accepted postings that will never be written are reported as failed, not left pending
+            @Override
+            public void abandon(List<Posting> postings, RuntimeException cause) {
+                fail(postings);
+            }
+        };
+        this.workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(new BatchingWorker<>("async-posting-" + i, queueSize, maxBatchSize, 0, handler));
+        }
+        Gauge.builder("eagle.posting.async.queue_depth", this, AsyncPostingQueue::depth)
+                .description("Postings accepted but not yet written")
+                .register(meterRegistry);
+    }
+
+    // Takes a transaction without an ID or timestamp, as from TransactionMapper.toPendingModel
+    public Submission submit(TransactionModel transaction) {
+        if (closed) {
+            return new Submission(Admission.SHUT_DOWN, null);
+        }
+        Posting posting = new Posting("pst-" + UUID.randomUUID().toString().replace("-", ""), transaction);
+        // Recorded first, so a status poll that beats the worker still finds the posting
+        pending.put(posting.id(), new Status(transaction, null, false));
+        BatchingWorker<Posting> worker = workers.get(Math.floorMod(transaction.getAccountNumber().hashCode(), workers.size()));
+        if (!worker.offer(posting)) {
+            pending.remove(posting.id());
+            rejected.increment();
+            return new Submission(Admission.QUEUE_FULL, null);
+        }
+        return new Submission(Admission.ACCEPTED, posting.id());
+    }
+
+    public Optional<Status> status(String postingId) {
+        Status status = pending.get(postingId);
+        return Optional.ofNullable(status != null ? status : statuses.getIfPresent(postingId));
+    }
+
+    public int depth() {
+        int depth = 0;
+        for (BatchingWorker<Posting> worker : workers) {
+            depth += worker.depth();
+        }
+        return depth;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (BatchingWorker<Posting> worker : workers) {
+            worker.close();
+        }
+    }
+
+    private void write(PostingBatchWriter batchWriter, List<Posting> batch) {
+        List<TransactionModel> transactions = new ArrayList<>(batch.size());
+        for (Posting posting : batch) {
+            transactionMapper.stamp(posting.transaction());
+            transactions.add(posting.transaction());
+        }
+        List<PostingResult> results = batchWriter.write(transactions);
+        for (int i = 0; i < batch.size(); i++) {
+            Posting posting = batch.get(i);
+            settle(posting, new Status(posting.transaction(), results.get(i), false));
+        }
+    }
+
+    private void fail(List<Posting> batch) {
+        for (Posting posting : batch) {
+            settle(posting, new Status(posting.transaction(), null, true));
+        }
+    }
+
+    // Cached before it stops being pending, so a poll in between still finds it
+    private void settle(Posting posting, Status status) {
+        statuses.put(posting.id(), status);
+        pending.remove(posting.id());
+    }
+}
@@ -0,0 +1,101 @@
+package com.eagle.service;
+
+import com.eagle.model.BalanceSnapshotModel;
+import com.eagle.repository.BalanceSnapshotRepository;
+import com.eagle.repository.LedgerTail;
+import com.eagle.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads balances from the append-only transactions table. Snapshots are written every
+ * {@code eagle.snapshots.every-transactions} transactions per account, so a balance at any
+ * time is one snapshot plus the transactions up to the next snapshot, never a scan of the
+ * history. Only past the last snapshot is the scan open-ended, over the transactions that
+ * haven't been compacted yet.
+ * The stored {@code AccountModel.balance} stays the running total used to check withdrawals.
+ */
+@Service
+public class BalanceLedger {
+
+    // Sorts before every transaction ID, for accounts with no snapshot yet
+    private static final String BEFORE_FIRST_ID = "";
+
+    private final TransactionRepository transactionRepository;
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int snapshotEvery;
+
+    public BalanceLedger(TransactionRepository transactionRepository,
+                         BalanceSnapshotRepository snapshotRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${eagle.snapshots.every-transactions:1000}") int snapshotEvery) {
+        this.transactionRepository = transactionRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    // Balance including every transaction created at or before the given time
+    public long balanceAsOf(String accountNumber, OffsetDateTime asOf) {
+        Optional<BalanceSnapshotModel> snapshot = snapshotRepository
+                .findFirstByAccountNumberAndAsOfTimestampLessThanEqualOrderByAsOfTimestampDesc(accountNumber, asOf);
+        long base = snapshot.map(BalanceSnapshotModel::getBalance).orElse(0L);
+        String afterId = snapshot.map(BalanceSnapshotModel::getLastTransactionId).orElse(BEFORE_FIRST_ID);
+
+        // IDs follow creation time, so nothing created by asOf sorts after the next snapshot's last ID
+        Optional<BalanceSnapshotModel> next = snapshotRepository
+                .findFirstByAccountNumberAndAsOfTimestampGreaterThanOrderByAsOfTimestampAsc(accountNumber, asOf);
+        if (next.isEmpty()) {
+            return base + transactionRepository.sumBalanceChangeAfter(accountNumber, afterId, asOf);
+        }
+        return base + transactionRepository.sumBalanceChangeBetween(
+                accountNumber, afterId, next.get().getLastTransactionId(), asOf);
+    }
+
+    /**
+     * Writes a snapshot for every full run of {@code snapshotEvery} transactions after the latest
+     * snapshot, considering only IDs below {@code settledBeforeId} so transactions still being
+     * committed can't land behind a snapshot. Returns the number of snapshots written.
+     */
+    public int compact(String accountNumber, String settledBeforeId) {
+        int written = 0;
+        while (true) {
+            Optional<BalanceSnapshotModel> latest = snapshotRepository
+                    .findFirstByAccountNumberOrderByLastTransactionIdDesc(accountNumber);
+            String afterId = latest.map(BalanceSnapshotModel::getLastTransactionId).orElse(BEFORE_FIRST_ID);
+
+            // The Nth transaction after the snapshot, if there are that many yet
+            List<String> through = transactionRepository.findIdsBetween(
+                    accountNumber, afterId, settledBeforeId, PageRequest.of(snapshotEvery - 1, 1));
+            if (through.isEmpty()) {
+                return written;
+            }
+
+            LedgerTail tail = transactionRepository.summarize(accountNumber, afterId, through.get(0));
+            BalanceSnapshotModel snapshot = new BalanceSnapshotModel();
+            snapshot.setAccountNumber(accountNumber);
+            snapshot.setLastTransactionId(through.get(0));
+            snapshot.setBalance(latest.map(BalanceSnapshotModel::getBalance).orElse(0L) + tail.balanceChange());
+            snapshot.setTransactionCount(latest.map(BalanceSnapshotModel::getTransactionCount).orElse(0L)
+                    + tail.transactionCount());
+            snapshot.setAsOfTimestamp(tail.lastCreatedTimestamp());
+            snapshot.setCreatedTimestamp(OffsetDateTime.now());
+            try {
+                transactionTemplate.executeWithoutResult(status -> snapshotRepository.save(snapshot));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance wrote this snapshot first
+                return written;
+            }
+            written++;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+
+/**
+ * Applies a transaction to its account balance and records the transaction,
+ * guarding against concurrent postings on the same account.
+ */
+public interface BalancePostingStrategy {
+
+    PostingResult post(TransactionModel transaction);
+
+    // Signed balance change for a transaction: deposits add, withdrawals subtract
+    static long signedAmount(TransactionModel transaction) {
+        return isWithdrawal(transaction) ? -transaction.getAmount() : transaction.getAmount();
+    }
+
+    static boolean isWithdrawal(TransactionModel transaction) {
+        return "withdrawal".equalsIgnoreCase(transaction.getType());
+    }
+}
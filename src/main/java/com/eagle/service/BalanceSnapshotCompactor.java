@@ -0,0 +1,49 @@
+package com.eagle.service;
+
+import com.eagle.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Periodically snapshots the accounts that received transactions since the last run. Only
+ * transactions older than {@code eagle.snapshots.settle} are considered, since IDs are issued
+ * before commit and a slower posting could otherwise commit behind a snapshot.
+ */
+@Component
+@ConditionalOnProperty(name = "eagle.snapshots.enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceSnapshotCompactor {
+
+    private final TransactionRepository transactionRepository;
+    private final BalanceLedger balanceLedger;
+    private final Duration settle;
+
+    // Transactions below this ID have been looked at; the first run starts from the beginning
+    private String watermark = "";
+
+    public BalanceSnapshotCompactor(TransactionRepository transactionRepository,
+                                    BalanceLedger balanceLedger,
+                                    @Value("${eagle.snapshots.settle:10s}") Duration settle) {
+        this.transactionRepository = transactionRepository;
+        this.balanceLedger = balanceLedger;
+        this.settle = settle;
+    }
+
+    @Scheduled(fixedDelayString = "${eagle.snapshots.interval-ms:60000}")
+    public void compact() {
+        String settledBefore = TransactionIdGenerator.lowerBound(Instant.now().minus(settle));
+        if (settledBefore.compareTo(watermark) <= 0) {
+            return;
+        }
+
+        // An account's unsnapshotted tail only grows when it gets new transactions, so only those are checked
+        for (String accountNumber : transactionRepository.findAccountNumbersWithTransactionsBetween(watermark, settledBefore)) {
+            balanceLedger.compact(accountNumber, settledBefore);
+        }
+        watermark = settledBefore;
+    }
+}
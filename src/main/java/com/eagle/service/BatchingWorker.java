@@ -0,0 +1,103 @@
+package com.eagle.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One thread draining a bounded queue in batches: it waits for the first item, takes whatever
+ * else has queued up to the batch size, optionally waiting up to a window for more, and hands
+ * the batch to its handler. Items still queued when the worker stops are handed back as
+ * abandoned, so no caller is left waiting on them.
+ */
+final class BatchingWorker<T> implements AutoCloseable {
+
+    interface Handler<T> {
+        void write(List<T> batch);
+
+        // Items that will never be written: a batch whose write threw, or those left at shutdown
+        void abandon(List<T> items, RuntimeException cause);
+    }
+
+    private final BlockingQueue<T> queue;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final Handler<T> handler;
+    private final Thread thread;
+
+    BatchingWorker(String name, int queueSize, int maxBatchSize, long windowNanos, Handler<T> handler) {
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = windowNanos;
+        this.handler = handler;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Blocks while the queue is full, pushing back on callers
+    void put(T item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing for " + thread.getName(), e);
+        }
+    }
+
+    // False if the queue is full
+    boolean offer(T item) {
+        return queue.offer(item);
+    }
+
+    int depth() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                collectWithinWindow(batch);
+                try {
+                    handler.write(batch);
+                } catch (RuntimeException e) {
+                    handler.abandon(batch, e);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Stopping
+        }
+
+        List<T> abandoned = new ArrayList<>(batch);
+        queue.drainTo(abandoned);
+        handler.abandon(abandoned, new IllegalStateException(thread.getName() + " stopped"));
+    }
+
+    // Keep adding items until the window closes or the batch is full
+    private void collectWithinWindow(List<T> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.eagle.request.CreateTransaction;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports a stream of NDJSON {@code CreateTransaction} records. Records are read one at a
+ * time with Jackson's streaming parser, validated with the same rules as the single
+ * transaction endpoint, and posted in chunks, each chunk in one batched database
+ * transaction. One NDJSON result line is written back per record as each chunk completes,
+ * so memory stays flat whatever the size of the upload.
+ */
+@Service
+public class BulkTransactionImporter {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader treeReader;
+    private final Validator validator;
+    private final PostingBatchWriter batchWriter;
+    private final TransactionMapper transactionMapper;
+    private final int chunkSize;
+
+    public BulkTransactionImporter(ObjectMapper objectMapper,
+                                   Validator validator,
+                                   PostingBatchWriter batchWriter,
+                                   TransactionMapper transactionMapper,
+                                   @Value("${eagle.bulk.chunk-size:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        // Keep decimals exact so amounts with fractions of a penny are still rejected
+        this.treeReader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.validator = validator;
+        this.batchWriter = batchWriter;
+        this.transactionMapper = transactionMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public void importTransactions(String accountNumber, String userId, InputStream in, OutputStream out)
+            throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            List<BulkRecord> chunk = new ArrayList<>(chunkSize);
+            long recordNumber = 0;
+
+            while (true) {
+                JsonNode node;
+                try {
+                    node = treeReader.readTree(parser);
+                } catch (StreamReadException e) {
+                    // The stream can't be resynchronised after malformed JSON, so stop here
+                    flush(chunk, generator);
+                    writeError(generator, recordNumber + 1, Map.of("record", "Malformed JSON"));
+                    return;
+                }
+                if (node == null) {
+                    break;
+                }
+                recordNumber++;
+                chunk.add(toRecord(recordNumber, node, accountNumber, userId));
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, generator);
+                }
+            }
+            flush(chunk, generator);
+        }
+    }
+
+    private BulkRecord toRecord(long recordNumber, JsonNode node, String accountNumber, String userId) {
+        CreateTransaction transactionRequest;
+        try {
+            transactionRequest = objectMapper.treeToValue(node, CreateTransaction.class);
+        } catch (MismatchedInputException e) {
+            String field = e.getPath().isEmpty() ? "record" : e.getPath().get(0).getFieldName();
+            return BulkRecord.invalid(recordNumber, Map.of(field, "Invalid value"));
+        } catch (IOException e) {
+            return BulkRecord.invalid(recordNumber, Map.of("record", "Invalid record"));
+        }
+
+        Set<ConstraintViolation<CreateTransaction>> violations = validator.validate(transactionRequest);
+        if (!violations.isEmpty()) {
+            Map<String, String> errors = new LinkedHashMap<>();
+            for (ConstraintViolation<CreateTransaction> violation : violations) {
+                errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            return BulkRecord.invalid(recordNumber, errors);
+        }
+
+        return BulkRecord.valid(recordNumber, transactionMapper.toModel(accountNumber, userId, transactionRequest));
+    }
+
+    // Post the valid records of the chunk in one database transaction, then report every record in order
+    private void flush(List<BulkRecord> chunk, JsonGenerator generator) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<TransactionModel> transactions = new ArrayList<>(chunk.size());
+        for (BulkRecord record : chunk) {
+            if (record.transaction() != null) {
+                transactions.add(record.transaction());
+            }
+        }
+        List<PostingResult> results = transactions.isEmpty() ? List.of() : batchWriter.write(transactions);
+
+        int next = 0;
+        for (BulkRecord record : chunk) {
+            if (record.transaction() == null) {
+                writeError(generator, record.recordNumber(), record.errors());
+                continue;
+            }
+            PostingResult result = results.get(next++);
+            generator.writeStartObject();
+            generator.writeNumberField("record", record.recordNumber());
+            generator.writeNumberField("status", result.getHttpStatus());
+            if (result == PostingResult.POSTED) {
+                generator.writePOJOField("transaction", transactionMapper.toResponse(record.transaction()));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        chunk.clear();
+    }
+
+    private void writeError(JsonGenerator generator, long recordNumber, Map<String, String> errors) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("record", recordNumber);
+        generator.writeNumberField("status", 400);
+        generator.writePOJOField("fields", errors);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private record BulkRecord(long recordNumber, TransactionModel transaction, Map<String, String> errors) {
+
+        static BulkRecord valid(long recordNumber, TransactionModel transaction) {
+            return new BulkRecord(recordNumber, transaction, null);
+        }
+
+        static BulkRecord invalid(long recordNumber, Map<String, String> errors) {
+            return new BulkRecord(recordNumber, null, errors);
+        }
+    }
+}
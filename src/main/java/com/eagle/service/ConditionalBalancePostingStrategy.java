@@ -0,0 +1,44 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Lets the database do the check and the update in one conditional statement
+ * ({@code UPDATE ... SET balance = balance + ? WHERE balance >= ?}), so no lock is held
+ * in the JVM and it stays safe across several application instances.
+ */
+public class ConditionalBalancePostingStrategy implements BalancePostingStrategy {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ConditionalBalancePostingStrategy(AccountRepository accountRepository,
+                                             TransactionRepository transactionRepository,
+                                             PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public PostingResult post(TransactionModel transaction) {
+        long required = BalancePostingStrategy.isWithdrawal(transaction) ? transaction.getAmount() : 0L;
+        return transactionTemplate.execute(status -> {
+            int updated = accountRepository.applyBalanceDelta(
+                    transaction.getAccountNumber(), BalancePostingStrategy.signedAmount(transaction), required);
+            if (updated == 0) {
+                // Nothing matched: either the account is gone or the balance did not cover the withdrawal
+                return accountRepository.existsById(transaction.getAccountNumber())
+                        ? PostingResult.INSUFFICIENT_FUNDS
+                        : PostingResult.ACCOUNT_NOT_FOUND;
+            }
+            transactionRepository.save(transaction);
+            return PostingResult.POSTED;
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.eagle.service;
+
+import com.eagle.model.AccountModel;
+import com.eagle.model.Money;
+import com.eagle.model.TransactionModel;
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Base for strategies that load the account entity, check and update the balance in memory
+ * and save it together with the transaction in one database transaction.
+ */
+abstract class EntityBalancePostingStrategy implements BalancePostingStrategy {
+
+    protected final AccountRepository accountRepository;
+    protected final TransactionRepository transactionRepository;
+    protected final TransactionTemplate transactionTemplate;
+
+    protected EntityBalancePostingStrategy(AccountRepository accountRepository,
+                                           TransactionRepository transactionRepository,
+                                           PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Read, check and write the balance inside a single database transaction
+    protected PostingResult postInTransaction(TransactionModel transaction) {
+        return transactionTemplate.execute(status -> {
+            AccountModel account = accountRepository.findById(transaction.getAccountNumber()).orElse(null);
+            if (account == null) {
+                return PostingResult.ACCOUNT_NOT_FOUND;
+            }
+
+            if (BalancePostingStrategy.isWithdrawal(transaction)
+                    && !Money.covers(account.getBalance(), transaction.getAmount())) {
+                return PostingResult.INSUFFICIENT_FUNDS;
+            }
+
+            account.setBalance(Money.add(account.getBalance(), BalancePostingStrategy.signedAmount(transaction)));
+            accountRepository.save(account);
+            transactionRepository.save(transaction);
+            return PostingResult.POSTED;
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit: postings that arrive within a short window, or until the batch is full,
+ * are coalesced by a single committer thread into one database transaction with JDBC
+ * batching. Each caller still waits for, and gets, the result of its own posting.
+ */
+public class GroupCommitPostingStrategy implements BalancePostingStrategy, AutoCloseable {
+
+    private final DistributionSummary batchSizes;
+    private final Timer commitLatency;
+    private final BatchingWorker<PostingCommand> committer;
+
+    public GroupCommitPostingStrategy(PostingBatchWriter batchWriter, long windowMillis, int maxBatchSize,
+                                      int queueSize, MeterRegistry meterRegistry) {
+        this.batchSizes = DistributionSummary.builder("eagle.posting.group_commit.batch_size")
+                .description("Postings coalesced into one database transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.commitLatency = Timer.builder("eagle.posting.group_commit.commit_latency")
+                .description("Time to write and commit one group of postings")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.committer = new BatchingWorker<>("group-commit", queueSize, maxBatchSize,
+                TimeUnit.MILLISECONDS.toNanos(windowMillis), new BatchingWorker.Handler<>() {
+                    @Override
+                    public void write(List<PostingCommand> batch) {
+                        batchSizes.record(batch.size());
+                        commitLatency.record(() -> PostingCommand.writeBatch(batchWriter, batch));
+                    }
+
+                    @Override
+                    public void abandon(List<PostingCommand> commands, RuntimeException cause) {
+                        PostingCommand.failAll(commands, cause);
+                    }
+                });
+    }
+
+    @Override
+    public PostingResult post(TransactionModel transaction) {
+        PostingCommand command = new PostingCommand(transaction);
+        committer.put(command);
+        return command.await();
+    }
+
+    @Override
+    public void close() {
+        committer.close();
+    }
+}
@@ -0,0 +1,40 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serialises postings per account with a fixed set of JVM locks striped by account number.
+ * The lock is held until the database transaction has committed. Only safe with a single
+ * application instance.
+ */
+public class LockingBalancePostingStrategy extends EntityBalancePostingStrategy {
+
+    private final ReentrantLock[] stripes;
+
+    public LockingBalancePostingStrategy(AccountRepository accountRepository,
+                                         TransactionRepository transactionRepository,
+                                         PlatformTransactionManager transactionManager,
+                                         int stripeCount) {
+        super(accountRepository, transactionRepository, transactionManager);
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public PostingResult post(TransactionModel transaction) {
+        ReentrantLock lock = stripes[Math.floorMod(transaction.getAccountNumber().hashCode(), stripes.length)];
+        lock.lock();
+        try {
+            return postInTransaction(transaction);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
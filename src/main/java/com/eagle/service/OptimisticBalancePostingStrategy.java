@@ -0,0 +1,46 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Relies on the {@code @Version} column of the account: a concurrent posting makes the
+ * update fail at commit, and the whole read-check-write is retried a bounded number of times.
+ */
+public class OptimisticBalancePostingStrategy extends EntityBalancePostingStrategy {
+
+    private final int maxAttempts;
+    private final Counter retries;
+
+    public OptimisticBalancePostingStrategy(AccountRepository accountRepository,
+                                            TransactionRepository transactionRepository,
+                                            PlatformTransactionManager transactionManager,
+                                            int maxAttempts,
+                                            MeterRegistry meterRegistry) {
+        super(accountRepository, transactionRepository, transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.retries = Counter.builder("eagle.posting.optimistic.retries")
+                .description("Postings read and tried again after losing a version race")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public PostingResult post(TransactionModel transaction) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return postInTransaction(transaction);
+            } catch (OptimisticLockingFailureException e) {
+                // Another posting won the race, read the fresh balance and try again
+                if (attempt < maxAttempts) {
+                    retries.increment();
+                }
+            }
+        }
+        return PostingResult.CONFLICT;
+    }
+}
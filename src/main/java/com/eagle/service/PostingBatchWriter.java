@@ -0,0 +1,110 @@
+package com.eagle.service;
+
+import com.eagle.model.AccountModel;
+import com.eagle.model.Money;
+import com.eagle.model.TransactionModel;
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Posts a batch of transactions in one database transaction: each account in the batch is
+ * loaded once, postings are applied to it in order, and everything is written on commit.
+ * Concurrent writers outside the batch are detected through the account {@code @Version},
+ * in which case the whole batch is retried. A batch that loses every attempt is written one
+ * posting at a time, so only the postings to an account that keeps changing conflict.
+ */
+public class PostingBatchWriter {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public PostingBatchWriter(AccountRepository accountRepository,
+                              TransactionRepository transactionRepository,
+                              PlatformTransactionManager transactionManager,
+                              int maxAttempts) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Returns one result per transaction, in the same order
+    public List<PostingResult> write(List<TransactionModel> transactions) {
+        List<PostingResult> results = attempt(transactions);
+        if (results != null) {
+            return results;
+        }
+        if (transactions.size() == 1) {
+            return new ArrayList<>(Collections.singletonList(PostingResult.CONFLICT));
+        }
+
+        results = new ArrayList<>(transactions.size());
+        for (TransactionModel transaction : transactions) {
+            List<PostingResult> result = attempt(List.of(transaction));
+            results.add(result != null ? result.get(0) : PostingResult.CONFLICT);
+        }
+        return results;
+    }
+
+    // Writes the transactions together, retrying on a version conflict; null if every attempt lost
+    private List<PostingResult> attempt(List<TransactionModel> transactions) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> apply(transactions));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    // Package-private so tests can stand in for a concurrent writer
+    List<PostingResult> apply(List<TransactionModel> transactions) {
+        Set<String> accountNumbers = new LinkedHashSet<>();
+        for (TransactionModel transaction : transactions) {
+            accountNumbers.add(transaction.getAccountNumber());
+        }
+        Map<String, AccountModel> accounts = new HashMap<>();
+        for (AccountModel account : accountRepository.findAllById(accountNumbers)) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+
+        List<PostingResult> results = new ArrayList<>(transactions.size());
+        List<TransactionModel> posted = new ArrayList<>(transactions.size());
+        for (TransactionModel transaction : transactions) {
+            AccountModel account = accounts.get(transaction.getAccountNumber());
+            if (account == null) {
+                results.add(PostingResult.ACCOUNT_NOT_FOUND);
+                continue;
+            }
+
+            if (BalancePostingStrategy.isWithdrawal(transaction)
+                    && !Money.covers(account.getBalance(), transaction.getAmount())) {
+                results.add(PostingResult.INSUFFICIENT_FUNDS);
+                continue;
+            }
+
+            account.setBalance(Money.add(account.getBalance(), BalancePostingStrategy.signedAmount(transaction)));
+            posted.add(transaction);
+            results.add(PostingResult.POSTED);
+        }
+
+        accountRepository.saveAll(accounts.values());
+        transactionRepository.saveAll(posted);
+        return results;
+    }
+}
@@ -0,0 +1,41 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// A posting handed to a writer thread, with the future the calling request waits on
+record PostingCommand(TransactionModel transaction, CompletableFuture<PostingResult> result) {
+
+    PostingCommand(TransactionModel transaction) {
+        this(transaction, new CompletableFuture<>());
+    }
+
+    PostingResult await() {
+        return result.join();
+    }
+
+    // Write a batch of commands in one database transaction and hand each caller its own result
+    static void writeBatch(PostingBatchWriter batchWriter, List<PostingCommand> batch) {
+        List<TransactionModel> transactions = new ArrayList<>(batch.size());
+        for (PostingCommand command : batch) {
+            transactions.add(command.transaction());
+        }
+        try {
+            List<PostingResult> results = batchWriter.write(transactions);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            failAll(batch, e);
+        }
+    }
+
+    static void failAll(List<PostingCommand> commands, Throwable cause) {
+        for (PostingCommand command : commands) {
+            command.result().completeExceptionally(cause);
+        }
+    }
+}
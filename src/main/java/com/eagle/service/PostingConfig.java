@@ -0,0 +1,53 @@
+package com.eagle.service;
+
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// Selects the balance posting strategy with eagle.posting.strategy
+@Configuration
+public class PostingConfig {
+
+    @Bean
+    public PostingBatchWriter postingBatchWriter(
+            @Value("${eagle.posting.optimistic-max-attempts:5}") int optimisticMaxAttempts,
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            PlatformTransactionManager transactionManager) {
+        return new PostingBatchWriter(accountRepository, transactionRepository, transactionManager, optimisticMaxAttempts);
+    }
+
+    @Bean
+    public BalancePostingStrategy balancePostingStrategy(
+            @Value("${eagle.posting.strategy:conditional}") String strategy,
+            @Value("${eagle.posting.lock-stripes:64}") int lockStripes,
+            @Value("${eagle.posting.optimistic-max-attempts:5}") int optimisticMaxAttempts,
+            @Value("${eagle.posting.shards:0}") int shards,
+            @Value("${eagle.posting.ring-size:1024}") int ringSize,
+            @Value("${eagle.posting.shard-accounts:100000}") int shardAccounts,
+            @Value("${eagle.posting.max-batch-size:256}") int maxBatchSize,
+            @Value("${eagle.posting.group-commit.window-ms:2}") long groupCommitWindowMillis,
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            PlatformTransactionManager transactionManager,
+            PostingBatchWriter postingBatchWriter,
+            MeterRegistry meterRegistry) {
+        return switch (strategy) {
+            case "locking" -> new LockingBalancePostingStrategy(
+                    accountRepository, transactionRepository, transactionManager, lockStripes);
+            case "optimistic" -> new OptimisticBalancePostingStrategy(
+                    accountRepository, transactionRepository, transactionManager, optimisticMaxAttempts, meterRegistry);
+            case "conditional" -> new ConditionalBalancePostingStrategy(
+                    accountRepository, transactionRepository, transactionManager);
+            case "sharded" -> new ShardedLedgerPostingStrategy(accountRepository, transactionRepository, transactionManager,
+                    shards > 0 ? shards : Runtime.getRuntime().availableProcessors(), ringSize, maxBatchSize, shardAccounts);
+            case "group-commit" -> new GroupCommitPostingStrategy(postingBatchWriter,
+                    groupCommitWindowMillis, maxBatchSize, ringSize, meterRegistry);
+            default -> throw new IllegalArgumentException("Unknown posting strategy: " + strategy);
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.eagle.service;
+
+// Outcome of posting a transaction against an account balance, with the status it is reported as
+public enum PostingResult {
+    POSTED(201),
+    INSUFFICIENT_FUNDS(422),
+    ACCOUNT_NOT_FOUND(404),
+    CONFLICT(409);
+
+    private final int httpStatus;
+
+    PostingResult(int httpStatus) {
+        this.httpStatus = httpStatus;
+    }
+
+    public int getHttpStatus() { return httpStatus; }
+}
@@ -0,0 +1,196 @@
+package com.eagle.service;
+
+import com.eagle.model.AccountModel;
+import com.eagle.model.Money;
+import com.eagle.model.TransactionModel;
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-writer ledger: account numbers are hashed to a fixed number of shards, and each
+ * shard is owned by one {@link BatchingWorker} thread that drains a bounded ring buffer of
+ * posting commands. The shard holds the balances of the accounts it posts to in memory, so
+ * a batch is checked and applied there without reading the accounts back, and written in
+ * one database transaction: the postings' rows plus one balance update per account.
+ * <p>
+ * Each balance update only matches if the stored balance is still the one the shard holds.
+ * Nothing but the shard posts to its accounts, so that normally holds without retries or
+ * locks. A balance changed some other way (a bulk import, the async queue, a deletion) makes
+ * the shard read the account again and decide its postings afresh, ending in ACCOUNT_NOT_FOUND
+ * if it is gone; only an account that keeps changing under every read fails with CONFLICT.
+ * A rejection for funds made on a balance the shard only held is confirmed the same way.
+ */
+public class ShardedLedgerPostingStrategy implements BalancePostingStrategy, AutoCloseable {
+
+    // Reads of one batch's accounts before its postings are failed with CONFLICT
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Shard> shards;
+
+    public ShardedLedgerPostingStrategy(AccountRepository accountRepository,
+                                        TransactionRepository transactionRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        int shardCount, int ringSize, int maxBatchSize, int maxAccountsPerShard) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard(i, ringSize, maxBatchSize, maxAccountsPerShard));
+        }
+    }
+
+    @Override
+    public PostingResult post(TransactionModel transaction) {
+        Shard shard = shards.get(Math.floorMod(transaction.getAccountNumber().hashCode(), shards.size()));
+        PostingCommand command = new PostingCommand(transaction);
+        shard.worker.put(command);
+        return command.await();
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.worker.close();
+        }
+    }
+
+    private final class Shard implements BatchingWorker.Handler<PostingCommand> {
+
+        // Balances of the accounts posted to, least recently used evicted first; only the worker touches it
+        private final Map<String, Long> balances;
+        private final BatchingWorker<PostingCommand> worker;
+
+        Shard(int index, int ringSize, int maxBatchSize, int maxAccounts) {
+            // Room for every account of a batch, so loading some never evicts others it needs
+            int capacity = Math.max(maxAccounts, maxBatchSize);
+            this.balances = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > capacity;
+                }
+            };
+            this.worker = new BatchingWorker<>("ledger-shard-" + index, ringSize, maxBatchSize, 0, this);
+        }
+
+        @Override
+        public void write(List<PostingCommand> batch) {
+            List<PostingCommand> pending = batch;
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                pending = writeOnce(pending, attempt < MAX_ATTEMPTS);
+            }
+        }
+
+        /**
+         * Checks and applies the postings against the balances held, then writes them. Returns
+         * the postings to decide again on a fresh read: those of accounts whose stored balance
+         * had moved, and rejections made on a held balance the write didn't confirm.
+         */
+        private List<PostingCommand> writeOnce(List<PostingCommand> batch, boolean mayRetry) {
+            Set<String> fresh = load(batch);
+
+            // Check and apply each posting in order against the running balances
+            Map<String, Long> updated = new LinkedHashMap<>();
+            List<PostingResult> results = new ArrayList<>(batch.size());
+            for (PostingCommand command : batch) {
+                TransactionModel transaction = command.transaction();
+                String accountNumber = transaction.getAccountNumber();
+                Long balance = updated.containsKey(accountNumber) ? updated.get(accountNumber) : balances.get(accountNumber);
+                if (balance == null) {
+                    results.add(PostingResult.ACCOUNT_NOT_FOUND);
+                } else if (BalancePostingStrategy.isWithdrawal(transaction)
+                        && !Money.covers(balance, transaction.getAmount())) {
+                    results.add(PostingResult.INSUFFICIENT_FUNDS);
+                } else {
+                    updated.put(accountNumber, Money.add(balance, BalancePostingStrategy.signedAmount(transaction)));
+                    results.add(PostingResult.POSTED);
+                }
+            }
+
+            Set<String> changedElsewhere;
+            try {
+                changedElsewhere = transactionTemplate.execute(status -> store(batch, results, updated));
+            } catch (RuntimeException e) {
+                // Rolled back: what the database holds for these accounts is no longer known
+                balances.keySet().removeAll(updated.keySet());
+                throw e;
+            }
+
+            for (Map.Entry<String, Long> balance : updated.entrySet()) {
+                if (!changedElsewhere.contains(balance.getKey())) {
+                    balances.put(balance.getKey(), balance.getValue());
+                }
+            }
+            List<PostingCommand> retry = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                PostingCommand command = batch.get(i);
+                String accountNumber = command.transaction().getAccountNumber();
+                // A written balance proves the one held was right; an account only rejected has no such proof
+                boolean stale = changedElsewhere.contains(accountNumber)
+                        || (!updated.containsKey(accountNumber) && !fresh.contains(accountNumber));
+                if (stale && mayRetry) {
+                    balances.remove(accountNumber);
+                    retry.add(command);
+                } else {
+                    PostingResult result = results.get(i);
+                    command.result().complete(stale && result == PostingResult.POSTED ? PostingResult.CONFLICT : result);
+                }
+            }
+            return retry;
+        }
+
+        @Override
+        public void abandon(List<PostingCommand> commands, RuntimeException cause) {
+            PostingCommand.failAll(commands, cause);
+        }
+
+        // Reads the balances of the batch's accounts the shard doesn't hold yet, in one query; returns the accounts read
+        private Set<String> load(List<PostingCommand> batch) {
+            Set<String> missing = new HashSet<>();
+            for (PostingCommand command : batch) {
+                // A lookup, not containsKey, so the accounts already held count as recently used
+                if (balances.get(command.transaction().getAccountNumber()) == null) {
+                    missing.add(command.transaction().getAccountNumber());
+                }
+            }
+            if (!missing.isEmpty()) {
+                for (AccountModel account : accountRepository.findAllById(missing)) {
+                    balances.put(account.getAccountNumber(), account.getBalance());
+                }
+            }
+            return missing;
+        }
+
+        // Writes the new balances and the posted rows; returns the accounts whose stored balance had moved
+        private Set<String> store(List<PostingCommand> batch, List<PostingResult> results, Map<String, Long> updated) {
+            Set<String> changedElsewhere = new HashSet<>();
+            for (Map.Entry<String, Long> balance : updated.entrySet()) {
+                String accountNumber = balance.getKey();
+                if (accountRepository.replaceBalance(accountNumber, balances.get(accountNumber), balance.getValue()) == 0) {
+                    changedElsewhere.add(accountNumber);
+                }
+            }
+            List<TransactionModel> posted = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                TransactionModel transaction = batch.get(i).transaction();
+                if (results.get(i) == PostingResult.POSTED && !changedElsewhere.contains(transaction.getAccountNumber())) {
+                    posted.add(transaction);
+                }
+            }
+            transactionRepository.saveAll(posted);
+            return changedElsewhere;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.eagle.service;
+
+import com.eagle.model.Money;
+import com.eagle.repository.TransactionRepository;
+import com.eagle.response.TransactionResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams an account's full transaction history straight from a database cursor to the
+ * response, one row at a time. Nothing is collected into lists, and rows are selected into
+ * response objects rather than managed entities, so heap use stays constant however long
+ * the history is.
+ */
+@Service
+public class TransactionExporter {
+
+    public enum Format { NDJSON, CSV }
+
+    // Matches the fetch size of the streaming query
+    private static final int FLUSH_EVERY = 500;
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public TransactionExporter(TransactionRepository transactionRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public void export(String accountNumber, Format format, OutputStream out) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<TransactionResponse> transactions = transactionRepository.streamAllByAccountNumber(accountNumber)) {
+                    if (format == Format.CSV) {
+                        writeCsv(transactions.iterator(), out);
+                    } else {
+                        writeNdjson(transactions.iterator(), out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeNdjson(Iterator<TransactionResponse> transactions, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        int rows = 0;
+        while (transactions.hasNext()) {
+            generator.writeObject(transactions.next());
+            generator.writeRaw('\n');
+            if (++rows % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+    }
+
+    private void writeCsv(Iterator<TransactionResponse> transactions, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,type,amount,currency,reference,userId,createdTimestamp\r\n");
+        int rows = 0;
+        while (transactions.hasNext()) {
+            TransactionResponse transaction = transactions.next();
+            writer.write(transaction.getId());
+            writer.write(',');
+            writer.write(transaction.getType());
+            writer.write(',');
+            writer.write(Money.toString(transaction.getAmount()));
+            writer.write(',');
+            writer.write(transaction.getCurrency());
+            writer.write(',');
+            writeCsvField(writer, transaction.getReference());
+            writer.write(',');
+            writer.write(transaction.getUserId());
+            writer.write(',');
+            writer.write(String.valueOf(transaction.getCreatedTimestamp()));
+            writer.write("\r\n");
+            if (++rows % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    // Quote free text as RFC 4180 requires
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,55 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.eagle.request.CreateTransaction;
+import com.eagle.response.TransactionResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+
+// Maps transaction requests to models and models to responses
+@Component
+public class TransactionMapper {
+
+    private final TransactionIdGenerator transactionIdGenerator;
+
+    public TransactionMapper(TransactionIdGenerator transactionIdGenerator) {
+        this.transactionIdGenerator = transactionIdGenerator;
+    }
+
+    public TransactionModel toModel(String accountNumber, String userId, CreateTransaction transactionRequest) {
+        TransactionModel transactionModel = toPendingModel(accountNumber, userId, transactionRequest);
+        stamp(transactionModel);
+        return transactionModel;
+    }
+
+    // A model without an ID or timestamp yet, for a posting that is written later; see stamp
+    public TransactionModel toPendingModel(String accountNumber, String userId, CreateTransaction transactionRequest) {
+        TransactionModel transactionModel = new TransactionModel();
+        transactionModel.setAmount(transactionRequest.getAmount());
+        transactionModel.setCurrency(transactionRequest.getCurrency());
+        transactionModel.setType(transactionRequest.getType());
+        transactionModel.setReference(transactionRequest.getReference());
+        transactionModel.setAccountNumber(accountNumber);
+        transactionModel.setUserId(userId);
+        return transactionModel;
+    }
+
+    // IDs are time-ordered, so they are assigned as close as possible to the row being written
+    public void stamp(TransactionModel transactionModel) {
+        transactionModel.setId(transactionIdGenerator.next());
+        transactionModel.setCreatedTimestamp(OffsetDateTime.now());
+    }
+
+    public TransactionResponse toResponse(TransactionModel transactionModel) {
+        TransactionResponse response = new TransactionResponse();
+        response.setId(transactionModel.getId());
+        response.setAmount(transactionModel.getAmount());
+        response.setCurrency(transactionModel.getCurrency());
+        response.setType(transactionModel.getType());
+        response.setReference(transactionModel.getReference());
+        response.setUserId(transactionModel.getUserId());
+        response.setCreatedTimestamp(transactionModel.getCreatedTimestamp());
+        return response;
+    }
+}
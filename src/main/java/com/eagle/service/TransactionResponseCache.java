@@ -0,0 +1,88 @@
+package com.eagle.service;
+
+import com.eagle.response.TransactionResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON of recently read transactions, keyed by transaction ID. Transactions are
+ * never modified, so an entry never goes stale; entries only leave to keep the cache within
+ * its size in bytes, or when their account is deleted.
+ */
+@Service
+public class TransactionResponseCache {
+
+    // Bump when the serialized form of a transaction changes, so clients don't keep old copies
+    private static final String FORMAT = "v1";
+
+    // Per-entry bookkeeping on top of the JSON bytes
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private record Entry(String accountNumber, byte[] json) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entry> entries;
+
+    public TransactionResponseCache(ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${eagle.transaction-cache.maximum-size:64MB}") DataSize maximumSize) {
+        this.objectMapper = objectMapper;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((String id, Entry entry) -> entry.json().length + ENTRY_OVERHEAD)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "transaction-responses");
+    }
+
+    /**
+     * Strong entity tag of a transaction, known from its path alone: the representation of a
+     * transaction in an account never changes, so the tag never has to be read from anywhere.
+     */
+    public static String etag(String accountNumber, String transactionId) {
+        return "\"" + FORMAT + "/" + accountNumber + "/" + transactionId + "\"";
+    }
+
+    /**
+     * JSON of a transaction in an account, loading it on a miss. Empty if the account has no
+     * such transaction, including when the cached transaction belongs to another account.
+     */
+    public Optional<byte[]> get(String accountNumber, String transactionId,
+                                Supplier<Optional<TransactionResponse>> loader) {
+        Entry entry = entries.getIfPresent(transactionId);
+        if (entry == null) {
+            Optional<TransactionResponse> response = loader.get();
+            if (response.isEmpty()) {
+                return Optional.empty();
+            }
+            entry = new Entry(accountNumber, serialize(response.get()));
+            entries.put(transactionId, entry);
+        }
+        return entry.accountNumber().equals(accountNumber) ? Optional.of(entry.json()) : Optional.empty();
+    }
+
+    // Drops the transactions of a deleted account; rare enough to scan for
+    public void evictAccount(String accountNumber) {
+        entries.asMap().values().removeIf(entry -> entry.accountNumber().equals(accountNumber));
+    }
+
+    private byte[] serialize(TransactionResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
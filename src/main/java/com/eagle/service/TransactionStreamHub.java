@@ -0,0 +1,246 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.eagle.response.TransactionResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed transactions out to the server-sent event streams open on their account.
+ * Subscribers hold no thread: an idle stream is an emitter and an empty buffer. Publishing only
+ * adds to each subscriber's bounded buffer, and a small pool of sender threads writes buffered
+ * events out, so a slow client never holds up a posting. A subscriber whose buffer fills up is
+ * disconnected rather than left to fall further behind; it catches up by listing the account's
+ * transactions since the last event ID it received.
+ */
+@Service
+public class TransactionStreamHub implements AutoCloseable {
+
+    private final TransactionMapper transactionMapper;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final ExecutorService senders;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter slowDisconnects;
+    private volatile boolean closed;
+
+    public TransactionStreamHub(TransactionMapper transactionMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${eagle.stream.senders:2}") int senderCount,
+                                @Value("${eagle.stream.buffer-size:256}") int bufferSize,
+                                @Value("${eagle.stream.timeout:30m}") Duration timeout) {
+        this.transactionMapper = transactionMapper;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderCount, runnable -> {
+            Thread thread = new Thread(runnable, "transaction-stream-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.slowDisconnects = Counter.builder("eagle.stream.slow_disconnects")
+                .description("Subscribers disconnected because their buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("eagle.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open transaction streams")
+                .register(meterRegistry);
+    }
+
+    // Opens a stream of the transactions committed to an account from now on
+    public SseEmitter subscribe(String accountNumber) {
+        return subscribe(accountNumber, new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(String accountNumber, SseEmitter emitter) {
+        if (closed) {
+            emitter.complete();
+            return emitter;
+        }
+        Subscriber subscriber = new Subscriber(accountNumber, emitter, bufferSize);
+        // Added inside compute, so it can't land in a set that remove() is dropping
+        subscribers.compute(accountNumber, (key, accountSubscribers) -> {
+            Set<Subscriber> set = accountSubscribers == null ? ConcurrentHashMap.newKeySet() : accountSubscribers;
+            set.add(subscriber);
+            return set;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Publishes a transaction once it is committed: when the database transaction that saved it
+     * commits, or at once if there is none. Nothing is done for accounts nobody is streaming.
+     */
+    public void published(TransactionModel transaction) {
+        if (!subscribers.containsKey(transaction.getAccountNumber())) {
+            return;
+        }
+        TransactionResponse response = transactionMapper.toResponse(transaction);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingEvents().add(transaction.getAccountNumber(), response);
+        } else {
+            publish(transaction.getAccountNumber(), response);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Set<Subscriber> accountSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : accountSubscribers) {
+                subscriber.disconnect();
+            }
+        }
+        senders.shutdownNow();
+    }
+
+    private void publish(String accountNumber, TransactionResponse response) {
+        Set<Subscriber> accountSubscribers = subscribers.get(accountNumber);
+        if (accountSubscribers != null) {
+            for (Subscriber subscriber : accountSubscribers) {
+                subscriber.offer(response);
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscriber.removed.compareAndSet(false, true)) {
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(subscriber.accountNumber, (key, accountSubscribers) -> {
+                accountSubscribers.remove(subscriber);
+                return accountSubscribers.isEmpty() ? null : accountSubscribers;
+            });
+        }
+    }
+
+    // The events of the current database transaction, registered to be published when it commits
+    private PendingEvents pendingEvents() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEvents pending && pending.hub() == this) {
+                return pending;
+            }
+        }
+        PendingEvents pending = new PendingEvents();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private final class PendingEvents implements TransactionSynchronization {
+        private final List<String> accountNumbers = new ArrayList<>();
+        private final List<TransactionResponse> responses = new ArrayList<>();
+
+        TransactionStreamHub hub() {
+            return TransactionStreamHub.this;
+        }
+
+        void add(String accountNumber, TransactionResponse response) {
+            accountNumbers.add(accountNumber);
+            responses.add(response);
+        }
+
+        @Override
+        public void afterCommit() {
+            for (int i = 0; i < responses.size(); i++) {
+                publish(accountNumbers.get(i), responses.get(i));
+            }
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final String accountNumber;
+        private final SseEmitter emitter;
+        private final BlockingQueue<TransactionResponse> buffer;
+        // Set while a sender owns this subscriber, so its events go out one at a time and in order
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+
+        Subscriber(String accountNumber, SseEmitter emitter, int bufferSize) {
+            this.accountNumber = accountNumber;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(TransactionResponse response) {
+            if (removed.get()) {
+                return;
+            }
+            if (!buffer.offer(response)) {
+                slowDisconnects.increment();
+                disconnect();
+                return;
+            }
+            schedule();
+        }
+
+        void disconnect() {
+            remove(this);
+            buffer.clear();
+            emitter.complete();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; close() completes the stream
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                TransactionResponse response;
+                while (!removed.get() && (response = buffer.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(response.getId())
+                            .name("transaction")
+                            .data(response, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client has gone; the container reports it to the emitter's error callback too
+                remove(this);
+                buffer.clear();
+            } finally {
+                scheduled.set(false);
+            }
+            // An event offered after the last poll but before the flag was cleared
+            if (!removed.get() && !buffer.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import jakarta.persistence.PostPersist;
+
+/**
+ * Streams every transaction the persistence context inserts, whichever posting strategy, queue
+ * or import path saved it. The hub holds each one back until its database transaction commits.
+ */
+public class TransactionStreamListener {
+
+    private final TransactionStreamHub transactionStreamHub;
+
+    public TransactionStreamListener(TransactionStreamHub transactionStreamHub) {
+        this.transactionStreamHub = transactionStreamHub;
+    }
+
+    @PostPersist
+    void posted(TransactionModel transaction) {
+        transactionStreamHub.published(transaction);
+    }
+}
@@ -1,5 +1,7 @@
 package com.eagle.controller;
 
+import com.eagle.model.AccountModel;
+import com.eagle.repository.AccountRepository;
 import com.eagle.request.CreateUser;
 import com.eagle.request.CreateUser.Address;
 import com.eagle.request.UpdateAccount;
@@ -13,6 +15,12 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -27,6 +35,9 @@ public class AccountControllerE2ETest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private AccountRepository accountRepository;
+
     // --- Helper Methods ---
 
     private CreateUser buildUser(String name, String phone, String email, String line1, String town, String county, String postcode) {
@@ -160,6 +171,37 @@ public class AccountControllerE2ETest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void reissuedAccountNumber_shouldReturnForbiddenToFormerOwner() throws Exception {
+        String email1 = "reissueone" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("User One", "+441234567890", email1, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token1 = authenticateAndGetToken(email1);
+        String accountNumber = createAccountAndGetNumber(buildAccount("Closed Account", "personal", "GBP"), token1);
+        // Issued while user 1 still owns the account
+        token1 = authenticateAndGetToken(email1);
+        mockMvc.perform(delete("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token1))
+                .andExpect(status().isNoContent());
+
+        // The same number given to user 2, as after a sequence reset
+        String email2 = "reissuetwo" + System.currentTimeMillis() + "@example.com";
+        String userId2 = createUserAndGetId(buildUser("User Two", "+441234567891", email2, "456 New St", "Manchester", "Greater Manchester", "M1 2AB"));
+        AccountModel reissued = new AccountModel();
+        reissued.setAccountNumber(accountNumber);
+        reissued.setUserId(userId2);
+        reissued.setName("Reissued Account");
+        accountRepository.save(reissued);
+
+        mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token1))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\": 10.00, \"currency\": \"GBP\", \"type\": \"withdrawal\"}"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void deleteOtherUsersAccount_shouldReturnForbidden() throws Exception {
         // Create and authenticate user 1
@@ -214,6 +256,59 @@ public class AccountControllerE2ETest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getAccount_asOf_returnsHistoricalBalance() throws Exception {
+        String email = "asofuser" + System.nanoTime() + "@example.com";
+        createUserAndGetId(buildUser("As Of User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+        String accountNumber = createAccountAndGetNumber(buildAccount("As Of Account", "personal", "GBP"), token);
+        String deposit = "{\"amount\": %s, \"currency\": \"GBP\", \"type\": \"deposit\"}";
+
+        OffsetDateTime beforeDeposits = OffsetDateTime.now(ZoneOffset.UTC);
+        Thread.sleep(5);
+        mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(deposit, "100.00")))
+                .andExpect(status().isCreated());
+        Thread.sleep(5);
+        OffsetDateTime betweenDeposits = OffsetDateTime.now(ZoneOffset.UTC);
+        Thread.sleep(5);
+        mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(deposit, "50.00")))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token)
+                .param("asOf", beforeDeposits.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(0.00));
+        mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token)
+                .param("asOf", betweenDeposits.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(100.00));
+        mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(150.00));
+    }
+
+    @Test
+    void getAccount_withInvalidAsOf_returnsBadRequest() throws Exception {
+        String email = "asofuser" + System.nanoTime() + "@example.com";
+        createUserAndGetId(buildUser("As Of User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+        String accountNumber = createAccountAndGetNumber(buildAccount("As Of Account", "personal", "GBP"), token);
+
+        mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token)
+                .param("asOf", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void updateAccount_success() throws Exception {
         // Create and authenticate user
@@ -274,6 +369,40 @@ public class AccountControllerE2ETest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void updateOtherUsersAccount_withInvalidDetails_shouldReturnForbiddenBeforeValidating() throws Exception {
+        String email1 = "invalidotherone" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("User One", "+441234567890", email1, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token1 = authenticateAndGetToken(email1);
+
+        String email2 = "invalidothertwo" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("User Two", "+441234567891", email2, "456 New St", "Manchester", "Greater Manchester", "M1 2AB"));
+        String token2 = authenticateAndGetToken(email2);
+        String accountNumber = createAccountAndGetNumber(buildAccount("Other Account", "personal", "GBP"), token2);
+
+        // Access is checked before the body is bound, so the caller learns nothing about its validity
+        com.eagle.request.UpdateAccount updateAccount = new com.eagle.request.UpdateAccount();
+        updateAccount.setName("");
+        updateAccount.setAccountType("business");
+        mockMvc.perform(patch("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateAccount)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\": -1, \"type\": \"refund\"}"))
+                .andExpect(status().isForbidden());
+
+        // The owner sending the same body is told it's invalid
+        mockMvc.perform(patch("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token2)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateAccount)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void updateNonExistentAccount_shouldReturnNotFound() throws Exception {
         String email = "updateacc" + System.currentTimeMillis() + "@example.com";
@@ -314,4 +443,55 @@ public class AccountControllerE2ETest {
                 .content(objectMapper.writeValueAsString(updateAccount)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void listAccounts_returnsOnlyCallersAccountsInPages() throws Exception {
+        String email = "listuser" + System.nanoTime() + "@example.com";
+        createUserAndGetId(buildUser("List User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+        List<String> own = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            own.add(createAccountAndGetNumber(buildAccount("Account " + i, "personal", "GBP"), token));
+        }
+        Collections.sort(own);
+
+        String otherEmail = "otherlistuser" + System.nanoTime() + "@example.com";
+        createUserAndGetId(buildUser("Other User", "+441234567890", otherEmail, "123 Main St", "London", "Greater London", "E1 6AN"));
+        createAccountAndGetNumber(buildAccount("Other Account", "personal", "GBP"), authenticateAndGetToken(otherEmail));
+
+        // First page holds the two lowest account numbers and a cursor
+        MvcResult firstPage = mockMvc.perform(get("/v1/accounts")
+                .header("Authorization", "Bearer " + token)
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts.length()").value(2))
+                .andExpect(jsonPath("$.accounts[0].accountNumber").value(own.get(0)))
+                .andExpect(jsonPath("$.accounts[1].accountNumber").value(own.get(1)))
+                .andExpect(jsonPath("$.accounts[0].balance").value(0.00))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn();
+        String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+        // Last page has the remaining account, none of the other user's, and no cursor
+        mockMvc.perform(get("/v1/accounts")
+                .header("Authorization", "Bearer " + token)
+                .param("limit", "2")
+                .param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts.length()").value(1))
+                .andExpect(jsonPath("$.accounts[0].accountNumber").value(own.get(2)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void listAccounts_withInvalidCursor_returnsBadRequest() throws Exception {
+        String email = "listuser" + System.nanoTime() + "@example.com";
+        createUserAndGetId(buildUser("List User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+
+        mockMvc.perform(get("/v1/accounts")
+                .header("Authorization", "Bearer " + token)
+                .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,326 @@
+package com.eagle.controller;
+
+import com.eagle.request.CreateAccount;
+import com.eagle.request.CreateUser;
+import com.eagle.request.CreateUser.Address;
+import com.eagle.request.UpdateAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Counts the SQL statements each request prepares, so the entity loaded by the access
+ * check is reused by the controller instead of being fetched a second time.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Keep the snapshot job's queries out of the counts
+        "eagle.snapshots.enabled=false",
+        // Let delta sync cursors move past every transaction, even one created this millisecond
+        "eagle.transactions.sync-settle=-1s"
+})
+@AutoConfigureMockMvc
+public class QueryCountE2ETest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String userId;
+    private String email;
+    private String token;
+    private String accountNumber;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        email = "querycount" + System.nanoTime() + "@example.com";
+        CreateUser user = new CreateUser();
+        user.setName("Query Count");
+        user.setPhoneNumber("+441234567890");
+        user.setEmail(email);
+        Address address = new Address();
+        address.setLine1("1 Main St");
+        address.setTown("London");
+        address.setCounty("Greater London");
+        address.setPostcode("E1 6AN");
+        user.setAddress(address);
+        MvcResult result = mockMvc.perform(post("/v1/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        userId = objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+
+        token = authenticate();
+
+        CreateAccount account = new CreateAccount();
+        account.setName("Query Count Account");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        result = mockMvc.perform(post("/v1/accounts")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(account)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        accountNumber = objectMapper.readTree(result.getResponse().getContentAsString()).get("accountNumber").asText();
+
+        // Count the statements of a cold second-level cache; SecondLevelCacheE2ETest covers warm reads
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    private String authenticate() throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\": \"" + email + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+    }
+
+    private String createTransaction() throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\": 10.00, \"currency\": \"GBP\", \"type\": \"deposit\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+    }
+
+    @Test
+    void fetchAccount_loadsAccountOnce() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void updateAccount_loadsOnceAndUpdatesOnce() throws Exception {
+        UpdateAccount update = new UpdateAccount();
+        update.setName("Renamed");
+        update.setAccountType("personal");
+        statistics.clear();
+        mockMvc.perform(patch("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void createTransaction_checksOwnershipThenWrites() throws Exception {
+        statistics.clear();
+        createTransaction();
+        // The account for the ownership check, the conditional balance update and the transaction insert
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void listTransactions_readsTheAccountAndThePage() throws Exception {
+        createTransaction();
+        statistics.clear();
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        // The account for the ownership check also answers the version, so no separate version query
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        // Rows are selected into responses; the account is the only entity loaded
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fetchUser_loadsUserOnce() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/v1/users/" + userId)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getTransaction_checksOwnershipThenSelectsResponseInOneQuery() throws Exception {
+        String transactionId = createTransaction();
+        statistics.clear();
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/" + transactionId)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        // The account for the ownership check, then the transaction selected straight into the response
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getTransaction_again_isServedFromTheResponseCache() throws Exception {
+        String transactionId = createTransaction();
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/" + transactionId)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        statistics.clear();
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/" + transactionId)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(jsonPath("$.id").value(transactionId));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void getTransaction_ifNoneMatch_returnsNotModifiedWithoutStatements() throws Exception {
+        String transactionId = createTransaction();
+        String etag = mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/" + transactionId)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        statistics.clear();
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/" + transactionId)
+                .header("Authorization", "Bearer " + token)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void getTransaction_ifNoneMatch_forATransactionNotInTheAccount_isNotFound() throws Exception {
+        String transactionId = createTransaction();
+        String etag = mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/" + transactionId)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // A tag built for a transaction that doesn't exist confirms nothing
+        String madeUpId = "tan-zzzzzzzzzzz";
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/" + madeUpId)
+                .header("Authorization", "Bearer " + token)
+                .header("If-None-Match", etag.replace(transactionId, madeUpId)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void fetchAccount_ifNoneMatch_isAnsweredByTheCachedAccount() throws Exception {
+        String etag = mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).startsWith("W/");
+        statistics.clear();
+        mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        // The account cached by the first read answers both the ownership check and the version
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void listTransactions_ifNoneMatch_returnsNotModifiedUntilTheNextPosting() throws Exception {
+        createTransaction();
+        String etag = mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        statistics.clear();
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        // The cached account answers the check and the version: no page read, nothing to map or serialize
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        createTransaction();
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(2));
+        mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token)
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(20.0));
+    }
+
+    @Test
+    void listTransactions_since_readsOnlyTheDelta() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            createTransaction();
+        }
+        String cursor = objectMapper.readTree(mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                        .param("since", "")
+                        .header("Authorization", "Bearer " + token))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.transactions.length()").value(50))
+                        .andReturn().getResponse().getContentAsString())
+                .get("nextCursor").asText();
+        String newest = createTransaction();
+
+        statistics.clear();
+        String next = objectMapper.readTree(mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                        .param("since", cursor)
+                        .header("Authorization", "Bearer " + token))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.transactions.length()").value(1))
+                        .andExpect(jsonPath("$.transactions[0].id").value(newest))
+                        .andReturn().getResponse().getContentAsString())
+                .get("nextCursor").asText();
+        // The account, which also answers the version, and one index seek from the cursor, whatever the length of the history
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(next).isNotEqualTo(cursor);
+
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .param("since", next)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").value(next));
+    }
+
+    @Test
+    void deleteUserWithAccounts_checksExistenceWithoutLoadingAccounts() throws Exception {
+        statistics.clear();
+        mockMvc.perform(delete("/v1/users/" + userId)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isConflict());
+        // The user for the access check, then an exists query on the accounts
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void authenticate_loadsNoEntities() throws Exception {
+        statistics.clear();
+        authenticate();
+        // The user ID by email only
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
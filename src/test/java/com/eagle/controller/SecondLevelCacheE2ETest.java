@@ -0,0 +1,233 @@
+package com.eagle.controller;
+
+import com.eagle.request.CreateAccount;
+import com.eagle.request.CreateUser;
+import com.eagle.request.CreateUser.Address;
+import com.eagle.request.UpdateAccount;
+import com.eagle.request.UpdateUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Read-heavy traffic against the second-level cache: repeated account and user reads are
+ * served without database round trips, postings to one account leave the others cached, and
+ * every write path leaves no stale entry behind.
+ */
+@SpringBootTest(properties = "eagle.snapshots.enabled=false")
+@AutoConfigureMockMvc
+public class SecondLevelCacheE2ETest {
+
+    private static final int READS = 500;
+    private static final int ROUNDS = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+    private String userId;
+    private String email;
+    private String token;
+    private String accountNumber;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+
+        email = "l2cache" + System.nanoTime() + "@example.com";
+        CreateUser user = new CreateUser();
+        user.setName("Cache User");
+        user.setPhoneNumber("+441234567890");
+        user.setEmail(email);
+        Address address = new Address();
+        address.setLine1("1 Main St");
+        address.setTown("London");
+        address.setCounty("Greater London");
+        address.setPostcode("E1 6AN");
+        user.setAddress(address);
+        MvcResult result = mockMvc.perform(post("/v1/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        userId = objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+
+        token = authenticate();
+        accountNumber = createAccount("Cache Account");
+    }
+
+    private String authenticate() throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\": \"" + email + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+    }
+
+    private String createAccount(String name) throws Exception {
+        CreateAccount account = new CreateAccount();
+        account.setName(name);
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        MvcResult result = mockMvc.perform(post("/v1/accounts")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(account)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("accountNumber").asText();
+    }
+
+    private void readAccount(String number) throws Exception {
+        mockMvc.perform(get("/v1/accounts/" + number).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    private void readAccountAndUser() throws Exception {
+        readAccount(accountNumber);
+        mockMvc.perform(get("/v1/users/" + userId).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    // Round trips with every read starting from an empty cache against one warm cache
+    @Test
+    void readHeavyTraffic_savesDatabaseRoundTrips() throws Exception {
+        statistics.clear();
+        for (int i = 0; i < READS; i++) {
+            sessionFactory.getCache().evictAllRegions();
+            readAccountAndUser();
+        }
+        long uncached = statistics.getPrepareStatementCount();
+
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+        for (int i = 0; i < READS; i++) {
+            readAccountAndUser();
+        }
+        long cached = statistics.getPrepareStatementCount();
+
+        assertThat(uncached).isEqualTo(2L * READS);
+        // Only the first read of each entity goes to the database
+        assertThat(cached).isEqualTo(2);
+        assertThat(statistics.getDomainDataRegionStatistics("accounts").getHitCount()).isGreaterThanOrEqualTo(READS - 1);
+        assertThat(meterRegistry.get("eagle.cache.hit_ratio").tag("region", "accounts").gauge().value())
+                .isGreaterThan(0);
+    }
+
+    // Each round posts to one account, then reads it and an account nobody writes to twice each
+    @Test
+    void mixedReadWriteTraffic_evictsOnlyTheAccountPostedTo() throws Exception {
+        String otherAccountNumber = createAccount("Untouched Account");
+        readAccount(otherAccountNumber);
+
+        statistics.clear();
+        long otherAccountStatements = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"amount\": 1.00, \"currency\": \"GBP\", \"type\": \"deposit\"}"))
+                    .andExpect(status().isCreated());
+            readAccount(accountNumber);
+            readAccount(accountNumber);
+            long before = statistics.getPrepareStatementCount();
+            readAccount(otherAccountNumber);
+            readAccount(otherAccountNumber);
+            otherAccountStatements += statistics.getPrepareStatementCount() - before;
+        }
+
+        assertThat(otherAccountStatements).isZero();
+        // The posting's ownership check hits, then only the first read after the posting misses;
+        // evicting the whole region would also miss the first read of the untouched account
+        var accounts = statistics.getDomainDataRegionStatistics("accounts");
+        assertThat(accounts.getMissCount()).isEqualTo(ROUNDS);
+        assertThat(accounts.getHitCount()).isEqualTo(4L * ROUNDS);
+        mockMvc.perform(get("/v1/accounts/" + accountNumber).header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.balance").value(ROUNDS * 1.0));
+    }
+
+    @Test
+    void accountUpdate_isVisibleToTheNextRead() throws Exception {
+        readAccountAndUser();
+        UpdateAccount update = new UpdateAccount();
+        update.setName("Renamed");
+        update.setAccountType("personal");
+        mockMvc.perform(patch("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/v1/accounts/" + accountNumber).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed"));
+    }
+
+    @Test
+    void posting_isVisibleInTheNextBalanceRead() throws Exception {
+        readAccountAndUser();
+        mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\": 10.00, \"currency\": \"GBP\", \"type\": \"deposit\"}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/v1/accounts/" + accountNumber).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(10.0));
+    }
+
+    @Test
+    void accountDelete_isVisibleToTheNextRead() throws Exception {
+        readAccountAndUser();
+        mockMvc.perform(delete("/v1/accounts/" + accountNumber).header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/v1/accounts/" + accountNumber).header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void userUpdate_isVisibleToTheNextRead() throws Exception {
+        readAccountAndUser();
+        UpdateUser update = new UpdateUser();
+        update.setName("Renamed User");
+        update.setPhoneNumber("+441234567890");
+        update.setEmail(email);
+        mockMvc.perform(patch("/v1/users/" + userId)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/v1/users/" + userId).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed User"));
+    }
+}
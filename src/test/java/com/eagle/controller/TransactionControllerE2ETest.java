@@ -13,6 +13,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.net.URI;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -86,7 +88,7 @@ public class TransactionControllerE2ETest {
 
         // Create transaction (deposit)
         CreateTransaction transaction = new CreateTransaction();
-        transaction.setAmount(100.0);
+        transaction.setAmount(10000L); // 100.00
         transaction.setCurrency("GBP");
         transaction.setType("deposit");
         transaction.setReference("Initial deposit");
@@ -120,7 +122,7 @@ public class TransactionControllerE2ETest {
 
         // Try withdrawal with insufficient funds
         CreateTransaction transaction = new CreateTransaction();
-        transaction.setAmount(100.0);
+        transaction.setAmount(10000L); // 100.00
         transaction.setCurrency("GBP");
         transaction.setType("withdrawal");
         transaction.setReference("Attempted overdraft");
@@ -148,7 +150,7 @@ public class TransactionControllerE2ETest {
 
         // Deposit first to ensure sufficient balance
         CreateTransaction deposit = new CreateTransaction();
-        deposit.setAmount(200.0);
+        deposit.setAmount(20000L); // 200.00
         deposit.setCurrency("GBP");
         deposit.setType("deposit");
         deposit.setReference("Deposit for withdrawal");
@@ -161,7 +163,7 @@ public class TransactionControllerE2ETest {
 
         // Withdraw less than deposited amount
         CreateTransaction withdrawal = new CreateTransaction();
-        withdrawal.setAmount(150.0);
+        withdrawal.setAmount(15000L); // 150.00
         withdrawal.setCurrency("GBP");
         withdrawal.setType("withdrawal");
         withdrawal.setReference("Withdrawal with sufficient funds");
@@ -207,7 +209,7 @@ public class TransactionControllerE2ETest {
 
         // Create transaction (deposit)
         CreateTransaction transaction = new CreateTransaction();
-        transaction.setAmount(50.0);
+        transaction.setAmount(5000L); // 50.00
         transaction.setCurrency("GBP");
         transaction.setType("deposit");
         transaction.setReference("Deposit for listing");
@@ -231,6 +233,166 @@ public class TransactionControllerE2ETest {
         assertThat(response).contains("Deposit for listing");
     }
 
+    @Test
+    void listTransactions_pagesWithCursor() throws Exception {
+        String email = "tranuser" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("Transaction User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+
+        CreateAccount account = new CreateAccount();
+        account.setName("Main Account");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        String accountNumber = createAccountAndGetNumber(account, token);
+
+        for (int i = 1; i <= 3; i++) {
+            CreateTransaction transaction = new CreateTransaction();
+            transaction.setAmount(1000L); // 10.00
+            transaction.setCurrency("GBP");
+            transaction.setType("deposit");
+            transaction.setReference("Deposit " + i);
+
+            mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transaction)))
+                    .andExpect(status().isCreated());
+        }
+
+        // First page holds the two oldest transactions and a cursor
+        MvcResult firstPage = mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .param("limit", "2")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.transactions[0].reference").value("Deposit 1"))
+                .andExpect(jsonPath("$.transactions[1].reference").value("Deposit 2"))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn();
+
+        String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+        // Last page carries on from the cursor and has no further cursor
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .param("limit", "2")
+                .param("after", cursor)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].reference").value("Deposit 3"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void listTransactions_since_returnsOnlyNewTransactionsAndResendsUnsettledOnes() throws Exception {
+        String email = "tranuser" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("Transaction User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+
+        CreateAccount account = new CreateAccount();
+        account.setName("Main Account");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        String accountNumber = createAccountAndGetNumber(account, token);
+
+        for (int i = 1; i <= 3; i++) {
+            CreateTransaction transaction = new CreateTransaction();
+            transaction.setAmount(1000L); // 10.00
+            transaction.setCurrency("GBP");
+            transaction.setType("deposit");
+            transaction.setReference("Deposit " + i);
+
+            mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transaction)))
+                    .andExpect(status().isCreated());
+        }
+
+        // An empty since starts the sync; a full page moves the cursor on even though nothing has settled yet
+        MvcResult first = mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .param("limit", "2")
+                .param("since", "")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.transactions[1].reference").value("Deposit 2"))
+                .andReturn();
+        String cursor = objectMapper.readTree(first.getResponse().getContentAsString()).get("nextCursor").asText();
+        assertThat(cursor).isNotEmpty();
+
+        // Only the delta comes back; it is younger than the settle window, so the cursor stays put.
+        // The cursor moves as time passes, so a tag of the list never turns a sync into a 304
+        String listETag = mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .param("limit", "2")
+                .param("since", cursor)
+                .header("Authorization", "Bearer " + token)
+                .header("If-None-Match", listETag))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].reference").value("Deposit 3"))
+                .andExpect(jsonPath("$.nextCursor").value(cursor));
+
+        mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions")
+                .param("since", cursor)
+                .param("after", cursor)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportTransactions_streamsNdjsonAndCsv() throws Exception {
+        String email = "tranuser" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("Transaction User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+
+        CreateAccount account = new CreateAccount();
+        account.setName("Main Account");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        String accountNumber = createAccountAndGetNumber(account, token);
+
+        CreateTransaction transaction = new CreateTransaction();
+        transaction.setAmount(1250L); // 12.50
+        transaction.setCurrency("GBP");
+        transaction.setType("deposit");
+        transaction.setReference("Rent, March");
+
+        mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transaction)))
+                .andExpect(status().isCreated());
+
+        // NDJSON: one transaction per line
+        MvcResult ndjson = mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/export")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String ndjsonBody = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(objectMapper.readTree(ndjsonBody.trim()).get("reference").asText()).isEqualTo("Rent, March");
+
+        // CSV: header, then the row with the free text quoted
+        MvcResult csv = mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/export")
+                .param("format", "csv")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csvBody = mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] rows = csvBody.split("\r\n");
+        assertThat(rows[0]).startsWith("id,type,amount");
+        assertThat(rows[1]).contains(",deposit,12.50,GBP,\"Rent, March\",");
+    }
+
     @Test
     void getTransactionById_success() throws Exception {
         // Create user and authenticate
@@ -247,7 +409,7 @@ public class TransactionControllerE2ETest {
 
         // Create transaction (deposit)
         CreateTransaction transaction = new CreateTransaction();
-        transaction.setAmount(25.0);
+        transaction.setAmount(2500L); // 25.00
         transaction.setCurrency("GBP");
         transaction.setType("deposit");
         transaction.setReference("Deposit for get by id");
@@ -290,7 +452,7 @@ public class TransactionControllerE2ETest {
 
         // User 1 tries to create a transaction on User 2's account
         CreateTransaction transaction = new CreateTransaction();
-        transaction.setAmount(10.0);
+        transaction.setAmount(1000L); // 10.00
         transaction.setCurrency("GBP");
         transaction.setType("deposit");
         transaction.setReference("Should be forbidden");
@@ -309,7 +471,7 @@ public class TransactionControllerE2ETest {
         String token = authenticateAndGetToken(email);
 
         CreateTransaction transaction = new CreateTransaction();
-        transaction.setAmount(10.0);
+        transaction.setAmount(1000L); // 10.00
         transaction.setCurrency("GBP");
         transaction.setType("deposit");
         transaction.setReference("Non-existent account");
@@ -342,6 +504,67 @@ public class TransactionControllerE2ETest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void createTransaction_withFractionOfPenny_shouldReturnBadRequest() throws Exception {
+        String email = "tranuser" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("Transaction User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+
+        CreateAccount account = new CreateAccount();
+        account.setName("Main Account");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        String accountNumber = createAccountAndGetNumber(account, token);
+
+        // Amounts have at most two decimal places
+        String transaction = "{\"amount\": 10.005, \"currency\": \"GBP\", \"type\": \"deposit\"}";
+
+        mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(transaction))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void bulkCreateTransactions_reportsEveryRecord() throws Exception {
+        String email = "tranuser" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("Transaction User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+
+        CreateAccount account = new CreateAccount();
+        account.setName("Main Account");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        String accountNumber = createAccountAndGetNumber(account, token);
+
+        // A deposit, an overdraft and a record that fails validation
+        String body = "{\"amount\": 100.00, \"currency\": \"GBP\", \"type\": \"deposit\", \"reference\": \"Bulk 1\"}\n"
+                + "{\"amount\": 500.00, \"currency\": \"GBP\", \"type\": \"withdrawal\", \"reference\": \"Bulk 2\"}\n"
+                + "{\"amount\": 10.00, \"currency\": \"USD\", \"type\": \"deposit\", \"reference\": \"Bulk 3\"}\n";
+
+        MvcResult result = mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions/bulk")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines[0]).get("status").asInt()).isEqualTo(201);
+        assertThat(objectMapper.readTree(lines[0]).get("transaction").get("reference").asText()).isEqualTo("Bulk 1");
+        assertThat(objectMapper.readTree(lines[1]).get("status").asInt()).isEqualTo(422);
+        assertThat(objectMapper.readTree(lines[2]).get("status").asInt()).isEqualTo(400);
+        assertThat(objectMapper.readTree(lines[2]).get("fields").has("currency")).isTrue();
+
+        // Only the deposit was posted
+        mockMvc.perform(get("/v1/accounts/" + accountNumber)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(100.0));
+    }
+
     @Test
     void listTransactions_onOtherUsersAccount_shouldReturnForbidden() throws Exception {
         // User 1
@@ -399,7 +622,7 @@ public class TransactionControllerE2ETest {
         String accountNumber = createAccountAndGetNumber(account, token2);
 
         CreateTransaction transaction = new CreateTransaction();
-        transaction.setAmount(10.0);
+        transaction.setAmount(1000L); // 10.00
         transaction.setCurrency("GBP");
         transaction.setType("deposit");
         transaction.setReference("Other's transaction");
@@ -433,7 +656,7 @@ public class TransactionControllerE2ETest {
         String accountNumber = createAccountAndGetNumber(account, token);
 
         CreateTransaction transaction = new CreateTransaction();
-        transaction.setAmount(10.0);
+        transaction.setAmount(1000L); // 10.00
         transaction.setCurrency("GBP");
         transaction.setType("deposit");
         transaction.setReference("Real transaction");
@@ -494,7 +717,7 @@ public class TransactionControllerE2ETest {
 
         // Create transaction on account 2
         CreateTransaction transaction = new CreateTransaction();
-        transaction.setAmount(10.0);
+        transaction.setAmount(1000L); // 10.00
         transaction.setCurrency("GBP");
         transaction.setType("deposit");
         transaction.setReference("Account 2 transaction");
@@ -513,4 +736,119 @@ public class TransactionControllerE2ETest {
                 .header("Authorization", "Bearer " + token))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void createTransaction_preferRespondAsync_acceptsThenStatusReportsOutcome() throws Exception {
+        String email = "tranuser" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("Transaction User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+
+        CreateAccount account = new CreateAccount();
+        account.setName("Main Account");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        String accountNumber = createAccountAndGetNumber(account, token);
+
+        CreateTransaction deposit = new CreateTransaction();
+        deposit.setAmount(10000L); // 100.00
+        deposit.setCurrency("GBP");
+        deposit.setType("deposit");
+        deposit.setReference("Queued deposit");
+
+        String depositStatus = postAsync(accountNumber, token, deposit);
+        MvcResult posted = awaitPosting(depositStatus, token);
+        assertThat(posted.getResponse().getStatus()).isEqualTo(200);
+        assertThat(posted.getResponse().getContentAsString()).contains("Queued deposit");
+
+        CreateTransaction overdraft = new CreateTransaction();
+        overdraft.setAmount(20000L); // 200.00
+        overdraft.setCurrency("GBP");
+        overdraft.setType("withdrawal");
+        overdraft.setReference("Queued overdraft");
+
+        String overdraftStatus = postAsync(accountNumber, token, overdraft);
+        assertThat(awaitPosting(overdraftStatus, token).getResponse().getStatus()).isEqualTo(422);
+
+        // The status belongs to the account the posting was made against
+        String otherAccountNumber = createAccountAndGetNumber(account, token);
+        mockMvc.perform(get(depositStatus.replace(accountNumber, otherAccountNumber))
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void streamTransactions_pushesEachCommittedTransaction() throws Exception {
+        String email = "tranuser" + System.currentTimeMillis() + "@example.com";
+        createUserAndGetId(buildUser("Transaction User", "+441234567890", email, "123 Main St", "London", "Greater London", "E1 6AN"));
+        String token = authenticateAndGetToken(email);
+
+        CreateAccount account = new CreateAccount();
+        account.setName("Main Account");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        String accountNumber = createAccountAndGetNumber(account, token);
+
+        MvcResult stream = mockMvc.perform(get("/v1/accounts/" + accountNumber + "/transactions/stream")
+                .header("Authorization", "Bearer " + token)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        CreateTransaction transaction = new CreateTransaction();
+        transaction.setAmount(1000L); // 10.00
+        transaction.setCurrency("GBP");
+        transaction.setType("deposit");
+        transaction.setReference("Streamed deposit");
+        MvcResult created = mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transaction)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String transactionId = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+
+        // Events are written by the hub's sender threads
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!stream.getResponse().getContentAsString().contains("Streamed deposit")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(stream.getResponse().getContentAsString())
+                .contains("id:" + transactionId)
+                .contains("event:transaction")
+                .contains("Streamed deposit");
+
+        mockMvc.perform(get("/v1/accounts/01999999/transactions/stream")
+                .header("Authorization", "Bearer " + token)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound());
+    }
+
+    // Posts with Prefer: respond-async and returns the path of the status resource
+    private String postAsync(String accountNumber, String token, CreateTransaction transaction) throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/accounts/" + accountNumber + "/transactions")
+                .header("Authorization", "Bearer " + token)
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transaction)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andReturn();
+        return URI.create(result.getResponse().getHeader("Location")).getPath();
+    }
+
+    // Polls a status resource until the posting is no longer queued
+    private MvcResult awaitPosting(String statusPath, String token) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            MvcResult result = mockMvc.perform(get(statusPath)
+                    .header("Authorization", "Bearer " + token))
+                    .andReturn();
+            if (result.getResponse().getStatus() != 202 || System.currentTimeMillis() > deadline) {
+                return result;
+            }
+            assertThat(result.getResponse().getHeader("Retry-After")).isNotNull();
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.eagle.journal;
+
+import com.eagle.model.TransactionModel;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Journal benchmarks, run with {@code ./gradlew benchmark}: prints how long a million posting
+ * records take to append and replay, and the posting latency the journal adds under each fsync
+ * policy.
+ */
+@Tag("benchmark")
+public class JournalBenchmark {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void millionPostings() throws IOException {
+        int records = 1_000_000;
+        byte[] payload = JournalTest.encodedPosting();
+        try (Journal journal = Journal.open(directory, 64 << 20, Journal.FsyncPolicy.NONE, 0)) {
+            long appendStarted = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                journal.append(LedgerJournal.TRANSACTION_POSTED, payload);
+            }
+            journal.commit();
+            long appendNanos = System.nanoTime() - appendStarted;
+
+            long[] replayed = {0};
+            long replayStarted = System.nanoTime();
+            journal.replay((type, record) -> {
+                JournalCodec.readString(record);
+                replayed[0]++;
+            });
+            long replayNanos = System.nanoTime() - replayStarted;
+
+            assertThat(replayed[0]).isEqualTo(records);
+            System.out.printf("%-8s %8s%n", "phase", "ms");
+            System.out.printf("%-8s %8d%n", "append", appendNanos / 1_000_000);
+            System.out.printf("%-8s %8d%n", "replay", replayNanos / 1_000_000);
+        }
+    }
+
+    @Test
+    void postingLatencyPerFsyncPolicy() throws IOException {
+        int postings = 2_000;
+        System.out.printf("%-8s %10s %10s%n", "policy", "p50 us", "p99 us");
+        for (Journal.FsyncPolicy policy : Journal.FsyncPolicy.values()) {
+            try (MappedLedgerJournal journal = new MappedLedgerJournal(
+                    Journal.open(directory.resolve(policy.name().toLowerCase()), 16 << 20, policy, 10))) {
+                long[] latencies = new long[postings];
+                for (int i = 0; i < postings; i++) {
+                    TransactionModel transaction = JournalTest.posting("tan-" + i);
+                    long started = System.nanoTime();
+                    journal.transactionPosted(transaction);
+                    latencies[i] = System.nanoTime() - started;
+                }
+                Arrays.sort(latencies);
+                System.out.printf("%-8s %10.1f %10.1f%n", policy, latencies[postings / 2] / 1e3,
+                        latencies[postings * 99 / 100] / 1e3);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.eagle.journal;
+
+import com.eagle.model.AccountModel;
+import com.eagle.model.TransactionModel;
+import com.eagle.model.UserModel;
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.SequenceRepository;
+import com.eagle.repository.TransactionRepository;
+import com.eagle.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "eagle.snapshots.enabled=false")
+public class JournalReplayTest {
+
+    // Outside the 01xxxxxx space the allocator issues from
+    private static final String ACCOUNT_NUMBER = "09000001";
+    private static final String CLOSED_ACCOUNT_NUMBER = "09000002";
+    private static final String SEQUENCE_NAME = "journal-replay-test";
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SequenceRepository sequenceRepository;
+
+    @Test
+    void replayInto_rebuildsUsersAccountsBalancesAndSequences() throws IOException {
+        String userId = UUID.randomUUID().toString();
+        try (MappedLedgerJournal journal = open()) {
+            UserModel user = user(userId, "Ada");
+            journal.userSaved(user);
+            user.setName("Ada Lovelace");
+            journal.userSaved(user);
+
+            AccountModel account = account(ACCOUNT_NUMBER, userId);
+            journal.accountCreated(account);
+            journal.accountCreated(account(CLOSED_ACCOUNT_NUMBER, userId));
+            journal.accountDeleted(CLOSED_ACCOUNT_NUMBER);
+            account.setName("Bills");
+            account.setVersion(1);
+            journal.accountUpdated(account);
+
+            journal.transactionPosted(transaction("tan-journal1", "deposit", 10_000));
+            journal.transactionPosted(transaction("tan-journal2", "deposit", 5_000));
+            journal.transactionPosted(transaction("tan-journal3", "withdrawal", 3_000));
+
+            journal.numbersReserved(SEQUENCE_NAME, 100);
+            journal.numbersReserved(SEQUENCE_NAME, 200);
+        }
+
+        try (MappedLedgerJournal journal = open()) {
+            assertThat(journal.replayInto(new JournalReplayer(entityManager, transactionManager))).isEqualTo(11);
+        }
+
+        assertThat(userRepository.findById(userId)).hasValueSatisfying(user -> {
+            assertThat(user.getName()).isEqualTo("Ada Lovelace");
+            assertThat(user.getAddress().getTown()).isEqualTo("London");
+        });
+        assertThat(accountRepository.findById(ACCOUNT_NUMBER)).hasValueSatisfying(account -> {
+            assertThat(account.getName()).isEqualTo("Bills");
+            assertThat(account.getBalance()).isEqualTo(12_000);
+            // The update's version plus one per posting, so no earlier version tag comes back
+            assertThat(account.getVersion()).isEqualTo(4);
+        });
+        assertThat(accountRepository.existsById(CLOSED_ACCOUNT_NUMBER)).isFalse();
+        assertThat(transactionRepository.countByAccountNumber(ACCOUNT_NUMBER)).isEqualTo(3);
+        assertThat(sequenceRepository.findById(SEQUENCE_NAME))
+                .hasValueSatisfying(sequence -> assertThat(sequence.getNextValue()).isEqualTo(200));
+    }
+
+    private MappedLedgerJournal open() throws IOException {
+        return new MappedLedgerJournal(Journal.open(directory, 4096, Journal.FsyncPolicy.ALWAYS, 0));
+    }
+
+    private static UserModel user(String id, String name) {
+        UserModel user = new UserModel();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(id + "@example.com");
+        user.setPhoneNumber("+441234567890");
+        user.setCreatedTimestamp(OffsetDateTime.now());
+        user.setUpdatedTimestamp(OffsetDateTime.now());
+        UserModel.Address address = new UserModel.Address();
+        address.setLine1("1 High Street");
+        address.setTown("London");
+        address.setPostcode("N1 1AA");
+        user.setAddress(address);
+        return user;
+    }
+
+    private static AccountModel account(String accountNumber, String userId) {
+        AccountModel account = new AccountModel();
+        account.setAccountNumber(accountNumber);
+        account.setUserId(userId);
+        account.setSortCode("10-10-10");
+        account.setName("Savings");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        account.setCreatedTimestamp(OffsetDateTime.now());
+        account.setUpdatedTimestamp(OffsetDateTime.now());
+        return account;
+    }
+
+    private static TransactionModel transaction(String id, String type, long amount) {
+        TransactionModel transaction = new TransactionModel();
+        transaction.setId(id);
+        transaction.setAccountNumber(ACCOUNT_NUMBER);
+        transaction.setType(type);
+        transaction.setAmount(amount);
+        transaction.setCurrency("GBP");
+        transaction.setCreatedTimestamp(OffsetDateTime.now());
+        return transaction;
+    }
+}
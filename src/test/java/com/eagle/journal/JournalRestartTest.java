@@ -0,0 +1,102 @@
+package com.eagle.journal;
+
+import com.eagle.Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the application with the journal on, changes an account through the API, then starts it
+ * again on an empty database: the journal alone must bring back the same balance and version.
+ * Rows are read with SQL, so nothing the first run left in a cache can stand in for the replay.
+ */
+public class JournalRestartTest {
+
+    private static final String ROW = "select balance, version, name from accounts where account_number = ?";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restart_rebuildsBalancesAndVersionsFromTheJournal() throws Exception {
+        String accountNumber;
+        Map<String, Object> beforeRestart;
+        try (ConfigurableApplicationContext context = start()) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String email = "journal" + UUID.randomUUID() + "@example.com";
+            send(baseUrl, "POST", "/v1/users", null, Map.of("name", "Journal User", "phoneNumber", "+441234567890",
+                    "email", email, "address", Map.of("line1", "1 High Street", "town", "London",
+                            "county", "Greater London", "postcode", "N1 1AA")), 201);
+            String token = send(baseUrl, "POST", "/v1/authenticate", null, Map.of("username", email), 200)
+                    .get("token").asText();
+
+            accountNumber = send(baseUrl, "POST", "/v1/accounts", token,
+                    Map.of("name", "Main", "accountType", "personal", "currency", "GBP"), 201)
+                    .get("accountNumber").asText();
+            String transactions = "/v1/accounts/" + accountNumber + "/transactions";
+            send(baseUrl, "POST", transactions, token, posting("deposit", 100), 201);
+            send(baseUrl, "POST", transactions, token, posting("withdrawal", 25), 201);
+            send(baseUrl, "POST", transactions, token, posting("withdrawal", 90), 422);
+            send(baseUrl, "PATCH", "/v1/accounts/" + accountNumber, token,
+                    Map.of("name", "Bills", "accountType", "personal"), 200);
+            send(baseUrl, "POST", transactions, token, posting("deposit", 10), 201);
+
+            beforeRestart = context.getBean(JdbcTemplate.class).queryForMap(ROW, accountNumber);
+        }
+        assertThat(beforeRestart).containsEntry("BALANCE", 8_500L).containsEntry("VERSION", 4L).containsEntry("NAME", "Bills");
+
+        try (ConfigurableApplicationContext context = start()) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            assertThat(jdbcTemplate.queryForMap(ROW, accountNumber)).isEqualTo(beforeRestart);
+            assertThat(jdbcTemplate.queryForObject("select count(*) from transactions where account_number = ?",
+                    Long.class, accountNumber)).isEqualTo(3);
+        }
+    }
+
+    // Each run gets a database of its own, so whatever the second finds came from the journal
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(Application.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:journal-restart-" + UUID.randomUUID(),
+                "--eagle.snapshots.enabled=false",
+                "--eagle.journal.enabled=true",
+                "--eagle.journal.directory=" + directory,
+                "--eagle.journal.segment-size=1MB",
+                "--eagle.journal.fsync=always");
+    }
+
+    // Amounts in pounds, as the API takes them
+    private static Map<String, Object> posting(String type, long amount) {
+        return Map.of("amount", amount, "currency", "GBP", "type", type, "reference", "Journal");
+    }
+
+    private JsonNode send(String baseUrl, String method, String path, String token, Object body,
+                          int expectedStatus) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as(method + " " + path + ": " + response.body()).isEqualTo(expectedStatus);
+        return response.body().isEmpty() ? null : objectMapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,213 @@
+package com.eagle.journal;
+
+import com.eagle.model.TransactionModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JournalTest {
+
+    private static final int SMALL_SEGMENT = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replay_returnsRecordsInAppendOrderAcrossSegments() throws IOException {
+        try (Journal journal = Journal.open(directory, SMALL_SEGMENT, Journal.FsyncPolicy.NONE, 0)) {
+            for (int i = 0; i < 100; i++) {
+                journal.append((byte) (i % 7 + 1), ("record-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+            journal.commit();
+
+            assertThat(segments()).hasSizeGreaterThan(1);
+            assertThat(read(journal)).hasSize(100).startsWith("1:record-0").endsWith("2:record-99");
+        }
+    }
+
+    @Test
+    void open_dropsTornRecordAtEndAndAppendsAfterLastWholeOne() throws IOException {
+        try (Journal journal = Journal.open(directory, SMALL_SEGMENT, Journal.FsyncPolicy.ALWAYS, 0)) {
+            journal.append((byte) 1, bytes("first"));
+            journal.append((byte) 1, bytes("second"));
+            journal.commit();
+        }
+        // A crash halfway through the second record leaves its length but not all of its payload
+        int secondPayload = Journal.HEADER_SIZE + "first".length() + Journal.HEADER_SIZE;
+        overwrite(segments().get(0), secondPayload, new byte[]{'X', 'X'});
+
+        try (Journal journal = Journal.open(directory, SMALL_SEGMENT, Journal.FsyncPolicy.ALWAYS, 0)) {
+            assertThat(read(journal)).containsExactly("1:first");
+
+            journal.append((byte) 2, bytes("third"));
+            journal.commit();
+            assertThat(read(journal)).containsExactly("1:first", "2:third");
+        }
+    }
+
+    @Test
+    void open_refusesDamageWithWholeRecordsAfterIt() throws IOException {
+        try (Journal journal = Journal.open(directory, SMALL_SEGMENT, Journal.FsyncPolicy.ALWAYS, 0)) {
+            journal.append((byte) 1, bytes("first"));
+            journal.append((byte) 1, bytes("second"));
+            journal.append((byte) 1, bytes("third"));
+            journal.commit();
+        }
+        // Not a torn append: the third record after it is whole
+        int secondPayload = Journal.HEADER_SIZE + "first".length() + Journal.HEADER_SIZE;
+        overwrite(segments().get(0), secondPayload, new byte[]{'X', 'X'});
+
+        assertThatThrownBy(() -> Journal.open(directory, SMALL_SEGMENT, Journal.FsyncPolicy.ALWAYS, 0))
+                .isInstanceOf(IllegalStateException.class);
+        // Nothing was zeroed: once the damage is repaired every record is there
+        overwrite(segments().get(0), secondPayload, bytes("se"));
+        try (Journal journal = Journal.open(directory, SMALL_SEGMENT, Journal.FsyncPolicy.ALWAYS, 0)) {
+            assertThat(read(journal)).containsExactly("1:first", "1:second", "1:third");
+        }
+    }
+
+    @Test
+    void replay_failsOnDamageBeforeTheLastSegment() throws IOException {
+        try (Journal journal = Journal.open(directory, SMALL_SEGMENT, Journal.FsyncPolicy.NONE, 0)) {
+            for (int i = 0; i < 50; i++) {
+                journal.append((byte) 1, bytes("record-" + i));
+            }
+        }
+        overwrite(segments().get(0), Journal.HEADER_SIZE, new byte[]{'X'});
+
+        try (Journal journal = Journal.open(directory, SMALL_SEGMENT, Journal.FsyncPolicy.NONE, 0)) {
+            assertThatThrownBy(() -> read(journal)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    // Appends only write to the mapping, so replaying many records never waits on per-record I/O
+    @Test
+    void append_forcesNothingUntilCommitAsksForIt() throws IOException {
+        try (Journal journal = Journal.open(directory, 1 << 20, Journal.FsyncPolicy.ALWAYS, 0)) {
+            for (int i = 0; i < 1_000; i++) {
+                journal.append(LedgerJournal.TRANSACTION_POSTED, bytes("record-" + i));
+            }
+            assertThat(journal.forces()).isZero();
+
+            journal.commit();
+            assertThat(journal.forces()).isEqualTo(1);
+            assertThat(read(journal)).hasSize(1_000);
+        }
+    }
+
+    // Only ALWAYS adds a force to each posting; BATCH leaves it to the flusher, NONE to the operating system
+    @Test
+    void transactionPosted_forcesPerPostingOnlyWhenAlwaysSyncing() throws IOException {
+        int postings = 200;
+        for (Journal.FsyncPolicy policy : Journal.FsyncPolicy.values()) {
+            Path policyDirectory = directory.resolve(policy.name().toLowerCase());
+            // An interval the test never reaches, so the flusher doesn't run
+            Journal journal = Journal.open(policyDirectory, 16 << 20, policy, Duration.ofHours(1).toMillis());
+            try (MappedLedgerJournal ledgerJournal = new MappedLedgerJournal(journal)) {
+                for (int i = 0; i < postings; i++) {
+                    ledgerJournal.transactionPosted(posting("tan-" + i));
+                }
+                assertThat(journal.forces()).as(policy.name()).isEqualTo(policy == Journal.FsyncPolicy.ALWAYS ? postings : 0);
+            }
+            try (Journal reopened = Journal.open(policyDirectory, 16 << 20, Journal.FsyncPolicy.NONE, 0)) {
+                assertThat(read(reopened)).hasSize(postings);
+            }
+        }
+    }
+
+    // The posting is committed by the time it is journaled, so a failed append must not fail it
+    @Test
+    void transactionPosted_appendFailingAfterCommit_isCountedNotThrown() throws IOException {
+        Journal journal = Journal.open(directory, 4096, Journal.FsyncPolicy.NONE, 0);
+        try (MappedLedgerJournal ledgerJournal = new MappedLedgerJournal(journal)) {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                ledgerJournal.transactionPosted(posting("tan-1"));
+                ledgerJournal.transactionPosted(posting("tan-2"));
+                journal.close();
+                for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                    synchronization.afterCommit();
+                }
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            assertThat(ledgerJournal.lostRecords()).isEqualTo(2);
+
+            ledgerJournal.transactionPosted(posting("tan-3"));
+            assertThat(ledgerJournal.lostRecords()).isEqualTo(3);
+        }
+    }
+
+    static byte[] encodedPosting() throws IOException {
+        Path scratch = Files.createTempDirectory("journal-posting");
+        try (MappedLedgerJournal journal = new MappedLedgerJournal(
+                Journal.open(scratch, 4096, Journal.FsyncPolicy.NONE, 0))) {
+            journal.transactionPosted(posting("tan-00000000001"));
+        }
+        List<byte[]> payloads = new ArrayList<>();
+        try (Journal journal = Journal.open(scratch, 4096, Journal.FsyncPolicy.NONE, 0)) {
+            journal.replay((type, record) -> {
+                byte[] payload = new byte[record.remaining()];
+                record.get(payload);
+                payloads.add(payload);
+            });
+        }
+        return payloads.get(0);
+    }
+
+    static TransactionModel posting(String id) {
+        TransactionModel transaction = new TransactionModel();
+        transaction.setId(id);
+        transaction.setAccountNumber("01234567");
+        transaction.setUserId("usr-abc123");
+        transaction.setType("deposit");
+        transaction.setAmount(10_000);
+        transaction.setCurrency("GBP");
+        transaction.setReference("Salary");
+        transaction.setCreatedTimestamp(OffsetDateTime.now());
+        return transaction;
+    }
+
+    private static List<String> read(Journal journal) throws IOException {
+        List<String> records = new ArrayList<>();
+        journal.replay((type, payload) -> {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            records.add(type + ":" + new String(bytes, StandardCharsets.UTF_8));
+        });
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void overwrite(Path file, long position, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
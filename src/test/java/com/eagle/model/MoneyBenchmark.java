@@ -0,0 +1,74 @@
+package com.eagle.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Money benchmark, run with {@code ./gradlew benchmark}: prints the cost of the posting
+ * arithmetic, balance comparison and wire formatting on pence held in a {@code long} next to
+ * the same work on {@link BigDecimal}, which amounts were held in before. Each figure includes
+ * an interface call, which is most of the cost of the cheapest operations.
+ */
+@Tag("benchmark")
+public class MoneyBenchmark {
+
+    private static final int WARMUP = 2_000_000;
+    private static final int ITERATIONS = 5_000_000;
+
+    // Results are folded into this so the JIT can't drop the work
+    private static long sink;
+
+    @Test
+    void penceAgainstBigDecimal() {
+        BigDecimal[] decimals = new BigDecimal[1024];
+        long[] pence = new long[decimals.length];
+        String[] texts = new String[decimals.length];
+        for (int i = 0; i < decimals.length; i++) {
+            pence[i] = 1_000L * i + i % 100;
+            decimals[i] = Money.toDecimal(pence[i]);
+            texts[i] = Money.toString(pence[i]);
+        }
+        int mask = decimals.length - 1;
+        char[] buffer = new char[21];
+
+        Map<String, IntToLongFunction[]> operations = new LinkedHashMap<>();
+        operations.put("add", new IntToLongFunction[]{
+                i -> Money.add(pence[i & mask], pence[(i + 1) & mask]),
+                i -> decimals[i & mask].add(decimals[(i + 1) & mask]).scale()});
+        operations.put("covers", new IntToLongFunction[]{
+                i -> Money.covers(pence[i & mask], pence[(i + 1) & mask]) ? 1 : 0,
+                i -> decimals[i & mask].compareTo(decimals[(i + 1) & mask]) >= 0 ? 1 : 0});
+        operations.put("format", new IntToLongFunction[]{
+                i -> Money.format(pence[i & mask], buffer),
+                i -> decimals[i & mask].toPlainString().length()});
+        operations.put("parse", new IntToLongFunction[]{
+                i -> Money.parse(texts[i & mask]),
+                i -> new BigDecimal(texts[i & mask]).scale()});
+
+        // Every operation is warmed up before any is timed, so none is measured while the others are still compiling
+        for (IntToLongFunction[] pair : operations.values()) {
+            run(pair[0], WARMUP);
+            run(pair[1], WARMUP);
+        }
+        System.out.printf("%-10s %10s %12s%n", "operation", "pence ns", "decimal ns");
+        operations.forEach((operation, pair) -> System.out.printf("%-10s %10.1f %12.1f%n", operation,
+                run(pair[0], ITERATIONS) / (double) ITERATIONS,
+                run(pair[1], ITERATIONS) / (double) ITERATIONS));
+    }
+
+    private static long run(IntToLongFunction operation, int times) {
+        long result = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            result += operation.applyAsLong(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += result;
+        return elapsed;
+    }
+}
@@ -0,0 +1,58 @@
+package com.eagle.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MoneyTest {
+
+    @Test
+    void parse_plainDecimals() {
+        assertThat(Money.parse("0")).isEqualTo(0L);
+        assertThat(Money.parse("10")).isEqualTo(1000L);
+        assertThat(Money.parse("10.5")).isEqualTo(1050L);
+        assertThat(Money.parse("10.99")).isEqualTo(1099L);
+        assertThat(Money.parse("10000.00")).isEqualTo(1_000_000L);
+        assertThat(Money.parse("1.2300")).isEqualTo(123L);
+        assertThat(Money.parse("-5.01")).isEqualTo(-501L);
+    }
+
+    @Test
+    void parse_rejectsFractionsOfAPenny() {
+        assertThatThrownBy(() -> Money.parse("10.005")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Money.parse(".5")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Money.parse("1e3")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void format_alwaysHasTwoDecimalPlaces() {
+        assertThat(Money.toString(0L)).isEqualTo("0.00");
+        assertThat(Money.toString(5L)).isEqualTo("0.05");
+        assertThat(Money.toString(1050L)).isEqualTo("10.50");
+        assertThat(Money.toString(1_000_000L)).isEqualTo("10000.00");
+        assertThat(Money.toString(-501L)).isEqualTo("-5.01");
+        assertThat(Money.toString(Long.MAX_VALUE)).isEqualTo("92233720368547758.07");
+        assertThat(Money.toString(Long.MIN_VALUE)).isEqualTo("-92233720368547758.08");
+    }
+
+    @Test
+    void parse_readsBackEveryFormattedExtreme() {
+        for (long pence : new long[]{Long.MIN_VALUE, Long.MIN_VALUE + 1, -1L, 0L, 1L, Long.MAX_VALUE}) {
+            assertThat(Money.parse(Money.toString(pence))).isEqualTo(pence);
+        }
+        assertThatThrownBy(() -> Money.parse("-92233720368547758.09")).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.parse("92233720368547758.08")).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void arithmetic_isExact() {
+        long balance = 0;
+        for (int i = 0; i < 10; i++) {
+            balance = Money.add(balance, Money.parse("0.10"));
+        }
+        assertThat(balance).isEqualTo(100L);
+        assertThat(Money.covers(balance, 100L)).isTrue();
+        assertThat(Money.covers(Money.subtract(balance, 1L), 100L)).isFalse();
+    }
+}
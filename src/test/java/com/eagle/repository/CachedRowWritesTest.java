@@ -0,0 +1,44 @@
+package com.eagle.repository;
+
+import com.eagle.model.AccountModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class CachedRowWritesTest {
+
+    // Outside the 01xxxxxx space the allocator issues from
+    private static final String ACCOUNT_NUMBER = "07000001";
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // The native update runs without Hibernate's auto-flush, so the rename must be flushed before it, not after
+    @Test
+    void applyBalanceDelta_afterAPendingChangeToTheSameAccount_keepsBoth() {
+        AccountModel account = new AccountModel();
+        account.setAccountNumber(ACCOUNT_NUMBER);
+        account.setUserId("usr-1");
+        account.setName("Main");
+        accountRepository.save(account);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            AccountModel managed = accountRepository.findById(ACCOUNT_NUMBER).orElseThrow();
+            managed.setName("Renamed");
+            assertThat(accountRepository.applyBalanceDelta(ACCOUNT_NUMBER, 100L, 0L)).isEqualTo(1);
+        });
+
+        AccountModel stored = accountRepository.findById(ACCOUNT_NUMBER).orElseThrow();
+        assertThat(stored.getName()).isEqualTo("Renamed");
+        assertThat(stored.getBalance()).isEqualTo(100L);
+        assertThat(stored.getVersion()).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,146 @@
+package com.eagle.repository;
+
+import com.eagle.request.CreateUser;
+import com.eagle.request.CreateUser.Address;
+import com.eagle.request.UpdateUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The principal cache: repeated lookups are hits, user updates and deletes evict the principal,
+ * and a principal changed behind the service's back is only served until its TTL runs out.
+ */
+@SpringBootTest(properties = {
+        "eagle.principal-cache.ttl=500ms",
+        "eagle.snapshots.enabled=false"
+})
+@AutoConfigureMockMvc
+public class CustomUserDetailsServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String userId;
+    private String email;
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        email = "principal" + System.nanoTime() + "@example.com";
+        CreateUser user = new CreateUser();
+        user.setName("Principal User");
+        user.setPhoneNumber("+441234567890");
+        user.setEmail(email);
+        Address address = new Address();
+        address.setLine1("1 Main St");
+        address.setTown("London");
+        address.setCounty("Greater London");
+        address.setPostcode("E1 6AN");
+        user.setAddress(address);
+        MvcResult result = mockMvc.perform(post("/v1/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        userId = objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+
+        result = mockMvc.perform(post("/v1/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\": \"" + email + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tags("cache", "principals", "result", result).functionCounter().count();
+    }
+
+    @Test
+    void loadUserByUsername_again_isAHit() {
+        userDetailsService.evict(userId);
+        double hits = gets("hit");
+        double misses = gets("miss");
+
+        assertThat(userDetailsService.loadUserByUsername(userId).getUsername()).isEqualTo(userId);
+        assertThat(userDetailsService.loadUserByUsername(userId).getUsername()).isEqualTo(userId);
+
+        assertThat(gets("miss") - misses).isEqualTo(1);
+        assertThat(gets("hit") - hits).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "principals").gauge().value()).isPositive();
+    }
+
+    @Test
+    void userUpdate_evictsThePrincipal() throws Exception {
+        userDetailsService.loadUserByUsername(userId);
+        UpdateUser update = new UpdateUser();
+        update.setName("Renamed User");
+        update.setPhoneNumber("+441234567890");
+        update.setEmail(email);
+        mockMvc.perform(patch("/v1/users/" + userId)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        double misses = gets("miss");
+        userDetailsService.loadUserByUsername(userId);
+        assertThat(gets("miss") - misses).isEqualTo(1);
+    }
+
+    @Test
+    void userDelete_evictsThePrincipal() throws Exception {
+        userDetailsService.loadUserByUsername(userId);
+        mockMvc.perform(delete("/v1/users/" + userId)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername(userId))
+                .isInstanceOf(UsernameNotFoundException.class);
+    }
+
+    @Test
+    void principalChangedElsewhere_isServedUntilItsTtlRunsOut() throws Exception {
+        userDetailsService.loadUserByUsername(userId);
+        // Deleted without going through the controller, so nothing evicts the principal
+        userRepository.deleteUser(userId);
+        assertThat(userDetailsService.loadUserByUsername(userId).getUsername()).isEqualTo(userId);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                userDetailsService.loadUserByUsername(userId);
+                Thread.sleep(50);
+            } catch (UsernameNotFoundException e) {
+                return;
+            }
+        }
+        throw new AssertionError("Principal still cached after its TTL");
+    }
+}
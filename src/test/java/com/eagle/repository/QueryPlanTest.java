@@ -0,0 +1,174 @@
+package com.eagle.repository;
+
+import com.eagle.model.UserModel;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query plan regression suite: captures the SQL each hot repository query sends, runs it through
+ * H2's EXPLAIN and fails if any statement reads a table without an index.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.eagle.repository.QueryPlanTest$RecordingInspector",
+        // Keep the snapshot job's statements out of the recording
+        "eagle.snapshots.enabled=false"
+})
+public class QueryPlanTest {
+
+    private static final String ACCOUNT_NUMBER = "01000000";
+    private static final String USER_ID = "usr-plan";
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    // Records every statement Hibernate prepares in this test's context
+    public static class RecordingInspector implements StatementInspector {
+        // StatementInspector is Serializable; the recorded statements are static, so there is no state to carry
+        private static final long serialVersionUID = 1L;
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SequenceRepository sequenceRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void accountQueries_useIndexes() {
+        assertIndexed("findById", () -> accountRepository.findById(ACCOUNT_NUMBER));
+        assertIndexed("findAllByUserId", () -> accountRepository.findAllByUserId(USER_ID));
+        assertIndexed("existsByUserId", () -> accountRepository.existsByUserId(USER_ID));
+        assertIndexed("existsById", () -> accountRepository.existsById(ACCOUNT_NUMBER));
+        assertIndexed("findVersionByAccountNumber", () -> accountRepository.findVersionByAccountNumber(ACCOUNT_NUMBER));
+        assertIndexed("findFirstPageByUserId", () -> accountRepository.findFirstPageByUserId(USER_ID, PAGE));
+        assertIndexed("findPageByUserIdAfter", () -> accountRepository.findPageByUserIdAfter(USER_ID, ACCOUNT_NUMBER, PAGE));
+        assertIndexed("applyBalanceDelta", () -> accountRepository.applyBalanceDelta(ACCOUNT_NUMBER, 100, 0));
+        assertIndexed("replaceBalance", () -> accountRepository.replaceBalance(ACCOUNT_NUMBER, 0, 100));
+        assertIndexed("updateDetails", () -> accountRepository.updateDetails(ACCOUNT_NUMBER, "name", "personal", OffsetDateTime.now()));
+        assertIndexed("deleteAccount", () -> accountRepository.deleteAccount(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    void transactionQueries_useIndexes() {
+        assertIndexed("findById", () -> transactionRepository.findById("tan-plan"));
+        assertIndexed("findAllByAccountNumber", () -> transactionRepository.findAllByAccountNumber(ACCOUNT_NUMBER));
+        assertIndexed("countByAccountNumber", () -> transactionRepository.countByAccountNumber(ACCOUNT_NUMBER));
+        assertIndexed("sumBalanceChangeAfter",
+                () -> transactionRepository.sumBalanceChangeAfter(ACCOUNT_NUMBER, "", OffsetDateTime.now()));
+        assertIndexed("sumBalanceChangeBetween",
+                () -> transactionRepository.sumBalanceChangeBetween(ACCOUNT_NUMBER, "", "tan-plan", OffsetDateTime.now()));
+        assertIndexed("summarize", () -> transactionRepository.summarize(ACCOUNT_NUMBER, "", "tan-plan"));
+        assertIndexed("findIdsBetween", () -> transactionRepository.findIdsBetween(ACCOUNT_NUMBER, "", "tan-plan", PAGE));
+        assertIndexed("findAccountNumbersWithTransactionsBetween",
+                () -> transactionRepository.findAccountNumbersWithTransactionsBetween("tan-a", "tan-b"));
+        assertIndexed("findResponseByIdAndAccountNumber",
+                () -> transactionRepository.findResponseByIdAndAccountNumber("tan-plan", ACCOUNT_NUMBER));
+        assertIndexed("findFirstPage", () -> transactionRepository.findFirstPage(ACCOUNT_NUMBER, PAGE));
+        assertIndexed("findPageAfter", () -> transactionRepository.findPageAfter(ACCOUNT_NUMBER, "tan-plan", PAGE));
+        assertIndexed("streamAllByAccountNumber", () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try (var transactions = transactionRepository.streamAllByAccountNumber(ACCOUNT_NUMBER)) {
+                transactions.forEach(transaction -> { });
+            }
+        }));
+    }
+
+    @Test
+    void userQueries_useIndexes() {
+        UserModel user = new UserModel();
+        user.setId(USER_ID);
+        user.setName("Plan User");
+        user.setEmail("plan@example.com");
+
+        assertIndexed("findById", () -> userRepository.findById(USER_ID));
+        assertIndexed("findByEmail", () -> userRepository.findByEmail("plan@example.com"));
+        assertIndexed("findIdByEmail", () -> userRepository.findIdByEmail("plan@example.com"));
+        assertIndexed("existsById", () -> userRepository.existsById(USER_ID));
+        assertIndexed("updateDetails", () -> userRepository.updateDetails(user));
+        assertIndexed("deleteUser", () -> userRepository.deleteUser(USER_ID));
+    }
+
+    @Test
+    void snapshotQueries_useIndexes() {
+        assertIndexed("findLatest",
+                () -> snapshotRepository.findFirstByAccountNumberOrderByLastTransactionIdDesc(ACCOUNT_NUMBER));
+        assertIndexed("findLatestAsOf",
+                () -> snapshotRepository.findFirstByAccountNumberAndAsOfTimestampLessThanEqualOrderByAsOfTimestampDesc(
+                        ACCOUNT_NUMBER, OffsetDateTime.now()));
+        assertIndexed("findNextAfterAsOf",
+                () -> snapshotRepository.findFirstByAccountNumberAndAsOfTimestampGreaterThanOrderByAsOfTimestampAsc(
+                        ACCOUNT_NUMBER, OffsetDateTime.now()));
+    }
+
+    @Test
+    void sequenceQueries_useIndexes() {
+        assertIndexed("findForUpdate", () -> new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> sequenceRepository.findForUpdate("plan")));
+    }
+
+    private void assertIndexed(String query, Runnable run) {
+        // A second-level cache hit would send no SQL to plan
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        RecordingInspector.statements.clear();
+        run.run();
+        List<String> statements = new ArrayList<>(RecordingInspector.statements);
+        assertThat(statements).as("SQL for %s", query).isNotEmpty();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertThat(plan).as("%s: %s", query, plan).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    // Parameters are bound to null: EXPLAIN only plans the statement, it doesn't run it
+    private String explain(String sql) {
+        List<String> plan = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            return statement;
+        }, (resultSet, row) -> resultSet.getString(1));
+        return String.join("\n", plan);
+    }
+}
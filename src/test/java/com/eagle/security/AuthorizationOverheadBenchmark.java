@@ -0,0 +1,70 @@
+package com.eagle.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Authorization benchmark, run with {@code ./gradlew benchmark}: prints the per-request cost of
+ * the compiled checks next to the SpEL {@code @PreAuthorize} evaluation they replaced. Both paths
+ * run in one request, which resolves the account once, so the numbers measure authorization
+ * overhead rather than the database.
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class AuthorizationOverheadBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Autowired
+    private AuthorizationInterceptor interceptor;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void compiledCheckAgainstMethodSecurity() throws Exception {
+        AuthorizationOverheadTest.Fixture fixture = AuthorizationOverheadTest.Fixture.create(context);
+        AuthorizationOverheadTest.authenticate("usr-1");
+
+        long compiledNanos = measure(() -> interceptor.preHandle(fixture.request(), fixture.response(), fixture.handler()));
+        long methodSecurityNanos = measure(() -> fixture.methodSecurity().get());
+
+        System.out.printf("%-16s %12s%n", "check", "ns/request");
+        System.out.printf("%-16s %12d%n", "compiled", compiledNanos / ITERATIONS);
+        System.out.printf("%-16s %12d%n", "method security", methodSecurityNanos / ITERATIONS);
+    }
+
+    private static long measure(Check check) throws Exception {
+        boolean granted = true;
+        for (int i = 0; i < WARMUP; i++) {
+            granted &= check.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            granted &= check.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(granted).isTrue();
+        return elapsed;
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        boolean run() throws Exception;
+    }
+}
@@ -0,0 +1,174 @@
+package com.eagle.security;
+
+import com.eagle.model.AccountModel;
+import com.eagle.repository.AccountRepository;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that every account and user endpoint is guarded, and that the compiled checks decide as
+ * the SpEL {@code @PreAuthorize} evaluation they replaced did without compiling anything per
+ * request. AuthorizationOverheadBenchmark times the two paths.
+ */
+@SpringBootTest
+public class AuthorizationOverheadTest {
+
+    // Ends in 00, so never one the allocator hands out
+    private static final String ACCOUNT_NUMBER = "01999900";
+
+    @Autowired
+    private AuthorizationInterceptor interceptor;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private AccountSecurity accountSecurity;
+
+    @Autowired
+    private UserSecurity userSecurity;
+
+    // The expression every account endpoint carried before the compiled checks
+    static class MethodSecurityController {
+        @PreAuthorize("@accountSecurity.hasAccessToAccount(#accountNumber)")
+        public void fetchAccountByAccountNumber(String accountNumber) {
+        }
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void everyAccountAndUserEndpoint_isGuarded() {
+        handlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+            Set<String> patterns = info.getPathPatternsCondition().getPatternValues();
+            if (patterns.stream().anyMatch(pattern -> pattern.contains("{accountNumber}"))) {
+                assertThat(handlerMethod.hasMethodAnnotation(AccountAccess.class)).as(handlerMethod.toString()).isTrue();
+            }
+            if (patterns.stream().anyMatch(pattern -> pattern.contains("{userId}"))) {
+                assertThat(handlerMethod.hasMethodAnnotation(UserAccess.class)).as(handlerMethod.toString()).isTrue();
+            }
+        });
+    }
+
+    @Test
+    void compiledCheck_decidesAsMethodSecurityDid() throws Exception {
+        Fixture fixture = Fixture.create(context);
+
+        authenticate("usr-1");
+        assertThat(interceptor.preHandle(fixture.request(), fixture.response(), fixture.handler())).isTrue();
+        assertThat(fixture.methodSecurity().get()).isTrue();
+
+        authenticate("usr-2");
+        assertThatThrownBy(() -> interceptor.preHandle(fixture.request(), fixture.response(), fixture.handler()))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(fixture.methodSecurity().get()).isFalse();
+    }
+
+    // Compiled once at startup; a request only looks its check up
+    @Test
+    void compiledCheck_isNotCompiledPerRequest() throws Exception {
+        Fixture fixture = Fixture.create(context);
+        authenticate("usr-1");
+        CountingInterceptor counting = new CountingInterceptor(accountSecurity, userSecurity);
+        counting.compile(new ContextRefreshedEvent(context));
+        int compiledAtStartup = counting.compilations;
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(counting.preHandle(fixture.request(), fixture.response(), fixture.handler())).isTrue();
+        }
+        assertThat(counting.compilations).isEqualTo(compiledAtStartup);
+    }
+
+    /**
+     * GET /v1/accounts/{accountNumber} for an account of usr-1, both as the interceptor sees it
+     * and as the authorization manager behind {@code @EnableMethodSecurity} did.
+     */
+    record Fixture(HandlerMethod handler, MockHttpServletRequest request, MockHttpServletResponse response,
+                   Supplier<Boolean> methodSecurity) {
+
+        static Fixture create(ApplicationContext context) throws Exception {
+            AccountModel account = new AccountModel();
+            account.setAccountNumber(ACCOUNT_NUMBER);
+            account.setUserId("usr-1");
+            context.getBean(AccountRepository.class).save(account);
+
+            HandlerMethod handler = context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class)
+                    .getHandlerMethods().values().stream()
+                    .filter(handlerMethod -> handlerMethod.getMethod().getName().equals("fetchAccountByAccountNumber"))
+                    .findFirst()
+                    .orElseThrow();
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/accounts/" + ACCOUNT_NUMBER);
+            request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("accountNumber", ACCOUNT_NUMBER));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+            DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
+            expressionHandler.setApplicationContext(context);
+            PreAuthorizeAuthorizationManager manager = new PreAuthorizeAuthorizationManager();
+            manager.setExpressionHandler(expressionHandler);
+            MethodInvocation invocation = new SimpleMethodInvocation(new MethodSecurityController(),
+                    MethodSecurityController.class.getMethod("fetchAccountByAccountNumber", String.class), ACCOUNT_NUMBER);
+            Supplier<Authentication> principal = () -> SecurityContextHolder.getContext().getAuthentication();
+
+            return new Fixture(handler, request, response, () -> manager.authorize(principal, invocation).isGranted());
+        }
+    }
+
+    static void authenticate(String userId) {
+        VerifiedToken token = new VerifiedToken("token", userId, Instant.now().plusSeconds(3600));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(userId, token, List.of()));
+    }
+
+    private static final class CountingInterceptor extends AuthorizationInterceptor {
+
+        private int compilations;
+
+        CountingInterceptor(AccountSecurity accountSecurity, UserSecurity userSecurity) {
+            super(accountSecurity, userSecurity);
+        }
+
+        @Override
+        AccessCheck compile(HandlerMethod handlerMethod, Set<String> patterns) {
+            compilations++;
+            return super.compile(handlerMethod, patterns);
+        }
+    }
+}
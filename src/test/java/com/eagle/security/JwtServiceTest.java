@@ -0,0 +1,98 @@
+package com.eagle.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JwtServiceTest {
+
+    private static final int TIMES = 1_000;
+
+    @Test
+    void verify_sameTokenAgain_isServedFromTheCache() {
+        JwtService jwtService = new JwtService(100);
+        String token = jwtService.generateToken("usr-1");
+
+        VerifiedToken first = jwtService.verify(token);
+        assertThat(first.userId()).isEqualTo("usr-1");
+        assertThat(jwtService.verify(token)).isSameAs(first);
+    }
+
+    @Test
+    void verify_withoutCache_parsesEveryTime() {
+        JwtService jwtService = new JwtService(0);
+        String token = jwtService.generateToken("usr-1");
+
+        VerifiedToken first = jwtService.verify(token);
+        assertThat(jwtService.verify(token)).isNotSameAs(first).isEqualTo(first);
+    }
+
+    @Test
+    void verify_tokenSharingACachedSignature_mustMatchAsAWhole() {
+        JwtService jwtService = new JwtService(100);
+        String token = jwtService.generateToken("usr-1");
+        String other = jwtService.generateToken("usr-2");
+        jwtService.verify(token);
+
+        // Another subject's claims under the cached token's signature
+        String[] tokenParts = token.split("\\.");
+        String[] otherParts = other.split("\\.");
+        String forged = tokenParts[0] + "." + otherParts[1] + "." + tokenParts[2];
+
+        assertThatThrownBy(() -> jwtService.verify(forged)).isInstanceOf(JwtException.class);
+        assertThat(jwtService.verify(token).userId()).isEqualTo("usr-1");
+    }
+
+    @Test
+    void verify_cachedTokenPastItsExpiry_isRejected() throws Exception {
+        JwtService jwtService = new JwtService(100);
+        // Expiry is carried in whole seconds
+        String token = jwtService.generateToken("usr-1", Duration.ofMillis(1500));
+        VerifiedToken verified = jwtService.verify(token);
+        assertThat(jwtService.verify(token)).isSameAs(verified);
+
+        Thread.sleep(Math.max(0, verified.expiresAt().toEpochMilli() - System.currentTimeMillis()) + 50);
+
+        assertThatThrownBy(() -> jwtService.verify(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    // A cached verification skips the signature check, which is what makes it cheap
+    @Test
+    void verify_cached_parsesTheTokenOnce() {
+        CountingJwtService cached = new CountingJwtService(100);
+        CountingJwtService uncached = new CountingJwtService(0);
+        String token = cached.generateToken("usr-1");
+
+        verifyRepeatedly(cached, token, TIMES);
+        verifyRepeatedly(uncached, token, TIMES);
+
+        assertThat(cached.parses).isEqualTo(1);
+        assertThat(uncached.parses).isEqualTo(TIMES);
+    }
+
+    static void verifyRepeatedly(JwtService jwtService, String token, int times) {
+        for (int i = 0; i < times; i++) {
+            assertThat(jwtService.verify(token).userId()).isEqualTo("usr-1");
+        }
+    }
+
+    private static final class CountingJwtService extends JwtService {
+
+        private int parses;
+
+        CountingJwtService(long verifiedCacheSize) {
+            super(verifiedCacheSize);
+        }
+
+        @Override
+        VerifiedToken parse(String token) {
+            parses++;
+            return super.parse(token);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.eagle.security;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Token verification benchmark, run with {@code ./gradlew benchmark}: prints the cost of a
+ * verification served from the cache next to a full parse and signature check.
+ */
+@Tag("benchmark")
+public class JwtVerificationBenchmark {
+
+    private static final int WARMUP = 5_000;
+    private static final int ITERATIONS = 20_000;
+
+    @Test
+    void cachedAgainstParsing() {
+        JwtService cached = new JwtService(100);
+        JwtService uncached = new JwtService(0);
+        String token = cached.generateToken("usr-1");
+
+        time(cached, token, WARMUP);
+        time(uncached, token, WARMUP);
+        long cachedNanos = time(cached, token, ITERATIONS);
+        long uncachedNanos = time(uncached, token, ITERATIONS);
+
+        System.out.printf("%-8s %12s%n", "verify", "ns/token");
+        System.out.printf("%-8s %12d%n", "cached", cachedNanos / ITERATIONS);
+        System.out.printf("%-8s %12d%n", "parsed", uncachedNanos / ITERATIONS);
+    }
+
+    private static long time(JwtService jwtService, String token, int times) {
+        long start = System.nanoTime();
+        JwtServiceTest.verifyRepeatedly(jwtService, token, times);
+        return System.nanoTime() - start;
+    }
+}
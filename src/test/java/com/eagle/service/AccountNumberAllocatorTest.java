@@ -0,0 +1,78 @@
+package com.eagle.service;
+
+import com.eagle.journal.LedgerJournal;
+import com.eagle.repository.SequenceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class AccountNumberAllocatorTest {
+
+    private static final int THREADS = 8;
+    private static final int NUMBERS_PER_THREAD = 500;
+
+    @Autowired
+    private AccountNumberAllocator allocator;
+
+    @Autowired
+    private SequenceRepository sequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void permute_isBijectionOverTheWholeSpace() {
+        BitSet seen = new BitSet(AccountNumberAllocator.SPACE);
+        for (int value = 0; value < AccountNumberAllocator.SPACE; value++) {
+            int number = AccountNumberAllocator.permute(value);
+            assertThat(number).isBetween(0, AccountNumberAllocator.SPACE - 1);
+            assertThat(seen.get(number)).as("duplicate for %d", value).isFalse();
+            seen.set(number);
+        }
+    }
+
+    @Test
+    void permute_doesNotLookSequential() {
+        assertThat(AccountNumberAllocator.permute(1) - AccountNumberAllocator.permute(0)).isNotEqualTo(1);
+    }
+
+    @Test
+    void next_isUniqueAcrossThreadsAndInstances() throws Exception {
+        // A second allocator over the same counter stands in for another application instance
+        AccountNumberAllocator otherInstance = new AccountNumberAllocator(sequenceRepository, transactionManager, LedgerJournal.NONE, 7);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                AccountNumberAllocator instance = t % 2 == 0 ? allocator : otherInstance;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                        String number = instance.next();
+                        assertThat(number).matches("^01\\d{6}$");
+                        assertThat(numbers.add(number)).as("duplicate %s", number).isTrue();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(numbers).hasSize(THREADS * NUMBERS_PER_THREAD);
+    }
+}
@@ -0,0 +1,136 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncPostingQueueTest {
+
+    // Holds the worker inside its first batch until released
+    private static final class BlockingBatchWriter extends PostingBatchWriter {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingBatchWriter() {
+            super(null, null, null, 1);
+        }
+
+        @Override
+        public List<PostingResult> write(List<TransactionModel> transactions) {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(Collections.nCopies(transactions.size(), PostingResult.POSTED));
+        }
+    }
+
+    @Test
+    void submit_turnsPostingsAwayOnceTheQueueIsFull() throws Exception {
+        BlockingBatchWriter batchWriter = new BlockingBatchWriter();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (AsyncPostingQueue queue = queue(batchWriter, meterRegistry)) {
+            assertThat(queue.submit(transaction()).admission()).isEqualTo(AsyncPostingQueue.Admission.ACCEPTED);
+            assertThat(batchWriter.writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            AsyncPostingQueue.Submission queued = queue.submit(transaction());
+            assertThat(queued.admission()).isEqualTo(AsyncPostingQueue.Admission.ACCEPTED);
+            AsyncPostingQueue.Submission full = queue.submit(transaction());
+            assertThat(full.admission()).isEqualTo(AsyncPostingQueue.Admission.QUEUE_FULL);
+            assertThat(full.postingId()).isNull();
+            assertThat(queue.status(queued.postingId())).hasValueSatisfying(status -> assertThat(status.pending()).isTrue());
+            assertThat(meterRegistry.get("eagle.posting.async.rejected").counter().count()).isEqualTo(1);
+
+            batchWriter.release.countDown();
+            awaitWritten(queue, queued.postingId());
+            assertThat(queue.status(queued.postingId())).hasValueSatisfying(
+                    status -> assertThat(status.result()).isEqualTo(PostingResult.POSTED));
+            assertThat(queue.depth()).isZero();
+        }
+    }
+
+    @Test
+    void submit_assignsTheTransactionIdWhenThePostingIsWritten() throws Exception {
+        BlockingBatchWriter batchWriter = new BlockingBatchWriter();
+        try (AsyncPostingQueue queue = queue(batchWriter, new SimpleMeterRegistry())) {
+            queue.submit(transaction());
+            assertThat(batchWriter.writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            AsyncPostingQueue.Submission queued = queue.submit(transaction());
+            assertThat(queued.postingId()).matches("^pst-[a-z0-9]+$");
+            assertThat(queue.status(queued.postingId()).orElseThrow().transaction().getId()).isNull();
+            // An ID issued while the posting waits must sort before the one it gets on the way out
+            String issuedWhileQueued = new TransactionIdGenerator(0).next();
+            Thread.sleep(5);
+
+            batchWriter.release.countDown();
+            awaitWritten(queue, queued.postingId());
+            TransactionModel written = queue.status(queued.postingId()).orElseThrow().transaction();
+            assertThat(written.getId()).isGreaterThan(issuedWhileQueued);
+            assertThat(written.getCreatedTimestamp()).isNotNull();
+        }
+    }
+
+    @Test
+    void submit_afterClose_isRefused() {
+        BlockingBatchWriter batchWriter = new BlockingBatchWriter();
+        batchWriter.release.countDown();
+        AsyncPostingQueue queue = queue(batchWriter, new SimpleMeterRegistry());
+        try (queue) {
+            assertThat(queue.submit(transaction()).admission()).isEqualTo(AsyncPostingQueue.Admission.ACCEPTED);
+        }
+        assertThat(queue.submit(transaction()).admission()).isEqualTo(AsyncPostingQueue.Admission.SHUT_DOWN);
+    }
+
+    // Only written postings count against the status cache, so a queued one is never evicted from under its poller
+    @Test
+    void status_ofQueuedPostings_outlastsTheStatusCacheSize() throws Exception {
+        BlockingBatchWriter batchWriter = new BlockingBatchWriter();
+        try (AsyncPostingQueue queue = new AsyncPostingQueue(batchWriter,
+                new TransactionMapper(new TransactionIdGenerator(0)), new SimpleMeterRegistry(),
+                1, 100, 10, 1, Duration.ofMinutes(1))) {
+            List<String> postingIds = new ArrayList<>();
+            postingIds.add(queue.submit(transaction()).postingId());
+            assertThat(batchWriter.writing.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 20; i++) {
+                postingIds.add(queue.submit(transaction()).postingId());
+            }
+
+            for (String postingId : postingIds) {
+                assertThat(queue.status(postingId)).hasValueSatisfying(status -> assertThat(status.pending()).isTrue());
+            }
+            batchWriter.release.countDown();
+        }
+    }
+
+    private static AsyncPostingQueue queue(PostingBatchWriter batchWriter, SimpleMeterRegistry meterRegistry) {
+        return new AsyncPostingQueue(batchWriter, new TransactionMapper(new TransactionIdGenerator(0)), meterRegistry,
+                1, 1, 10, 100, Duration.ofMinutes(1));
+    }
+
+    private static void awaitWritten(AsyncPostingQueue queue, String postingId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (queue.status(postingId).orElseThrow().pending() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static TransactionModel transaction() {
+        TransactionModel transaction = new TransactionModel();
+        transaction.setAccountNumber("01000001");
+        transaction.setType("deposit");
+        transaction.setAmount(100);
+        return transaction;
+    }
+}
@@ -0,0 +1,130 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.eagle.repository.BalanceSnapshotRepository;
+import com.eagle.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "eagle.snapshots.enabled=false")
+public class BalanceLedgerTest {
+
+    private static final int TRANSACTIONS = 10;
+    private static final int SNAPSHOT_EVERY = 3;
+    private static final OffsetDateTime START = OffsetDateTime.of(2025, 1, 1, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    // Above every generated transaction ID
+    private static final String SETTLED_BEFORE_ALL = "tan-~";
+
+    // Keeps IDs unique across tests sharing the database; order within an account is what matters
+    private static final AtomicLong idSequence = new AtomicLong();
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Test
+    void balanceAsOf_matchesFullReplayBeforeAndAfterCompaction() {
+        String accountNumber = accountNumberAllocator.next();
+        List<TransactionModel> transactions = postHistory(accountNumber);
+        BalanceLedger ledger = new BalanceLedger(transactionRepository, snapshotRepository, transactionManager, SNAPSHOT_EVERY);
+
+        assertBalancesMatchReplay(ledger, accountNumber, transactions);
+
+        // Three full runs of three transactions; the tenth waits for the next run
+        assertThat(ledger.compact(accountNumber, SETTLED_BEFORE_ALL)).isEqualTo(3);
+        assertThat(ledger.compact(accountNumber, SETTLED_BEFORE_ALL)).isZero();
+        assertThat(snapshotRepository.findFirstByAccountNumberOrderByLastTransactionIdDesc(accountNumber))
+                .hasValueSatisfying(snapshot -> {
+                    assertThat(snapshot.getLastTransactionId()).isEqualTo(transactions.get(8).getId());
+                    assertThat(snapshot.getTransactionCount()).isEqualTo(9);
+                });
+
+        assertBalancesMatchReplay(ledger, accountNumber, transactions);
+    }
+
+    @Test
+    void balanceAsOf_readsNoFurtherThanTheNextSnapshot() {
+        String accountNumber = accountNumberAllocator.next();
+        List<TransactionModel> transactions = postHistory(accountNumber);
+        BalanceLedger ledger = new BalanceLedger(transactionRepository, snapshotRepository, transactionManager, SNAPSHOT_EVERY);
+        ledger.compact(accountNumber, SETTLED_BEFORE_ALL);
+
+        // Sorts after every snapshot but claims to predate them all, so only an unbounded scan would count it
+        TransactionModel stray = transaction(accountNumber, "deposit", 1_000_000, START);
+        transactionRepository.save(stray);
+
+        long replayed = 0;
+        for (TransactionModel transaction : transactions.subList(0, 4)) {
+            replayed += BalancePostingStrategy.signedAmount(transaction);
+        }
+        // Between the snapshots through the third and sixth transactions
+        assertThat(ledger.balanceAsOf(accountNumber, transactions.get(3).getCreatedTimestamp())).isEqualTo(replayed);
+    }
+
+    @Test
+    void compact_ignoresTransactionsThatHaveNotSettled() {
+        String accountNumber = accountNumberAllocator.next();
+        List<TransactionModel> transactions = postHistory(accountNumber);
+        BalanceLedger ledger = new BalanceLedger(transactionRepository, snapshotRepository, transactionManager, SNAPSHOT_EVERY);
+
+        // Only the first four transactions are old enough
+        assertThat(ledger.compact(accountNumber, transactions.get(4).getId())).isEqualTo(1);
+    }
+
+    private void assertBalancesMatchReplay(BalanceLedger ledger, String accountNumber, List<TransactionModel> transactions) {
+        assertThat(ledger.balanceAsOf(accountNumber, START.minusSeconds(1))).isZero();
+        long replayed = 0;
+        for (TransactionModel transaction : transactions) {
+            replayed += BalancePostingStrategy.signedAmount(transaction);
+            assertThat(ledger.balanceAsOf(accountNumber, transaction.getCreatedTimestamp())).isEqualTo(replayed);
+            assertThat(ledger.balanceAsOf(accountNumber, transaction.getCreatedTimestamp().plusSeconds(30))).isEqualTo(replayed);
+        }
+    }
+
+    // One transaction a minute: deposits of 1.00, 2.00, ... with every third a withdrawal of 0.50
+    private List<TransactionModel> postHistory(String accountNumber) {
+        List<TransactionModel> transactions = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            boolean withdrawal = i % 3 == 2;
+            transactions.add(transaction(accountNumber, withdrawal ? "withdrawal" : "deposit",
+                    withdrawal ? 50 : 100L * (i + 1), START.plusMinutes(i)));
+        }
+        transactionRepository.saveAll(transactions);
+        return transactions;
+    }
+
+    // IDs are issued in call order, whatever the creation time
+    private static TransactionModel transaction(String accountNumber, String type, long amount, OffsetDateTime createdTimestamp) {
+        long firstId = (START.toInstant().toEpochMilli() - TransactionIdGenerator.EPOCH_MILLIS)
+                << (TransactionIdGenerator.NODE_BITS + TransactionIdGenerator.SEQUENCE_BITS);
+        TransactionModel transaction = new TransactionModel();
+        transaction.setId(TransactionIdGenerator.encode(firstId + idSequence.getAndIncrement()));
+        transaction.setAmount(amount);
+        transaction.setCurrency("GBP");
+        transaction.setType(type);
+        transaction.setReference("Ledger");
+        transaction.setCreatedTimestamp(createdTimestamp);
+        transaction.setAccountNumber(accountNumber);
+        transaction.setUserId("ledger-user");
+        return transaction;
+    }
+}
@@ -0,0 +1,117 @@
+package com.eagle.service;
+
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Posting benchmarks, run with {@code ./gradlew benchmark}. Many threads post deposits and
+ * withdrawals against one account with each strategy, and the throughput, retries, rejections
+ * and lost updates of each are printed side by side to choose between them; then deposits
+ * spread over many accounts show how the sharded strategy scales with its shard count
+ * against posting synchronously.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "eagle.snapshots.enabled=false")
+public class BalancePostingBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int POSTINGS_PER_THREAD = 500;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void contentionOnOneAccount() throws Exception {
+        System.out.printf("%-14s %10s %9s %8s %6s %8s%n", "strategy", "postings/s", "rejected", "retries", "lost", "ms");
+
+        report("locking", new SimpleMeterRegistry(),
+                new LockingBalancePostingStrategy(accountRepository, transactionRepository, transactionManager, 64));
+        MeterRegistry optimisticMeters = new SimpleMeterRegistry();
+        report("optimistic", optimisticMeters,
+                new OptimisticBalancePostingStrategy(accountRepository, transactionRepository, transactionManager, 5,
+                        optimisticMeters));
+        report("conditional", new SimpleMeterRegistry(),
+                new ConditionalBalancePostingStrategy(accountRepository, transactionRepository, transactionManager));
+    }
+
+    @Test
+    void spreadAcrossShardCounts() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-26s %10s %10s%n", "strategy", "postings/s", "vs sync");
+
+        double synchronous = spread("conditional (synchronous)",
+                new ConditionalBalancePostingStrategy(accountRepository, transactionRepository, transactionManager), 0);
+        double best = 0;
+        for (int shards = 1; shards <= cores; shards *= 2) {
+            try (ShardedLedgerPostingStrategy strategy = new ShardedLedgerPostingStrategy(
+                    accountRepository, transactionRepository, transactionManager, shards, 1024, 256, 1000)) {
+                best = Math.max(best, spread("sharded x" + shards, strategy, synchronous));
+            }
+        }
+        // Batching one transaction per shard is the point of the strategy
+        assertThat(best).as("best sharded postings/s").isGreaterThan(synchronous);
+    }
+
+    private double spread(String name, BalancePostingStrategy strategy, double baseline) throws Exception {
+        PostingLoad.spread(strategy, createAccounts(), POSTINGS_PER_THREAD / 10);
+
+        PostingLoad.Outcome outcome = PostingLoad.spread(strategy, createAccounts(), POSTINGS_PER_THREAD);
+        System.out.printf("%-26s %10.0f %9.2fx%n", name, outcome.perSecond(),
+                baseline == 0 ? 1 : outcome.perSecond() / baseline);
+        assertThat(outcome.rejected()).as(name).isZero();
+        return outcome.perSecond();
+    }
+
+    // Two accounts per thread of the contention benchmark, each with its own posting thread
+    private List<String> createAccounts() {
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < THREADS * 2; i++) {
+            accountNumbers.add(createAccount());
+        }
+        return accountNumbers;
+    }
+
+    private void report(String name, MeterRegistry meters, BalancePostingStrategy strategy) throws Exception {
+        // One untimed round first, so the JIT and connection pool don't count against the first strategy
+        PostingLoad.contend(strategy, createAccount(), THREADS, POSTINGS_PER_THREAD / 10);
+        double retriesBefore = retries(meters);
+
+        String accountNumber = createAccount();
+        PostingLoad.Outcome outcome = PostingLoad.contend(strategy, accountNumber, THREADS, POSTINGS_PER_THREAD);
+        long lostUpdates = Math.abs(outcome.expectedBalance()
+                - accountRepository.findById(accountNumber).orElseThrow().getBalance());
+
+        System.out.printf("%-14s %10.0f %9d %8.0f %6d %8d%n", name, outcome.perSecond(), outcome.rejected(),
+                retries(meters) - retriesBefore, lostUpdates, outcome.elapsedNanos() / 1_000_000);
+        assertThat(lostUpdates).as(name).isZero();
+    }
+
+    // Only the optimistic strategy retries
+    private static double retries(MeterRegistry meters) {
+        Counter retries = meters.find("eagle.posting.optimistic.retries").counter();
+        return retries == null ? 0 : retries.count();
+    }
+
+    private String createAccount() {
+        return accountRepository.save(PostingLoad.account()).getAccountNumber();
+    }
+}
@@ -0,0 +1,155 @@
+package com.eagle.service;
+
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads post deposits and withdrawals against one account with each strategy, checking
+ * that every posting is accounted for and no balance update is lost. BalancePostingBenchmark
+ * reports the throughput, retries and rejections of the same load.
+ */
+@SpringBootTest
+public class BalancePostingContentionTest {
+
+    private static final int THREADS = 8;
+    private static final int POSTINGS_PER_THREAD = 100;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void lockingStrategy_losesNoUpdates() throws Exception {
+        runContention("locking",
+                new LockingBalancePostingStrategy(accountRepository, transactionRepository, transactionManager, 64));
+    }
+
+    @Test
+    void optimisticStrategy_losesNoUpdates() throws Exception {
+        runContention("optimistic",
+                new OptimisticBalancePostingStrategy(accountRepository, transactionRepository, transactionManager, 5,
+                        new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void conditionalStrategy_losesNoUpdates() throws Exception {
+        runContention("conditional",
+                new ConditionalBalancePostingStrategy(accountRepository, transactionRepository, transactionManager));
+    }
+
+    @Test
+    void shardedStrategy_losesNoUpdates() throws Exception {
+        try (ShardedLedgerPostingStrategy strategy = new ShardedLedgerPostingStrategy(
+                accountRepository, transactionRepository, transactionManager, 4, 1024, 256, 1000)) {
+            runContention("sharded", strategy);
+        }
+    }
+
+    @Test
+    void shardedStrategy_acrossShards_losesNoUpdates() throws Exception {
+        try (ShardedLedgerPostingStrategy strategy = new ShardedLedgerPostingStrategy(
+                accountRepository, transactionRepository, transactionManager, 4, 1024, 256, 1000)) {
+            List<String> accountNumbers = new ArrayList<>();
+            for (int i = 0; i < THREADS * 2; i++) {
+                accountNumbers.add(createAccount());
+            }
+            PostingLoad.Outcome outcome = PostingLoad.spread(strategy, accountNumbers, POSTINGS_PER_THREAD);
+
+            assertThat(outcome.rejected()).isZero();
+            for (String accountNumber : accountNumbers) {
+                assertThat(accountRepository.findById(accountNumber).orElseThrow().getBalance())
+                        .isEqualTo(POSTINGS_PER_THREAD * 200L);
+            }
+        }
+    }
+
+    @Test
+    void shardedStrategy_balanceChangedOutsideTheShard_isReadAgainAndPosted() {
+        try (ShardedLedgerPostingStrategy strategy = new ShardedLedgerPostingStrategy(
+                accountRepository, transactionRepository, transactionManager, 1, 16, 16, 16)) {
+            String accountNumber = createAccount();
+            assertThat(strategy.post(PostingLoad.transaction(accountNumber, "deposit", 100L))).isEqualTo(PostingResult.POSTED);
+
+            // Not through the shard, so the balance it holds is stale and the write misses
+            accountRepository.applyBalanceDelta(accountNumber, 50L, 0L);
+            assertThat(strategy.post(PostingLoad.transaction(accountNumber, "deposit", 100L))).isEqualTo(PostingResult.POSTED);
+
+            assertThat(strategy.post(PostingLoad.transaction(accountNumber, "withdrawal", 250L))).isEqualTo(PostingResult.POSTED);
+            assertThat(accountRepository.findById(accountNumber).orElseThrow().getBalance()).isZero();
+            assertThat(transactionRepository.countByAccountNumber(accountNumber)).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void shardedStrategy_rejectionOnAStaleBalance_isCheckedAgainstTheStoredOne() {
+        try (ShardedLedgerPostingStrategy strategy = new ShardedLedgerPostingStrategy(
+                accountRepository, transactionRepository, transactionManager, 1, 16, 16, 16)) {
+            String accountNumber = createAccount();
+            assertThat(strategy.post(PostingLoad.transaction(accountNumber, "deposit", 100L))).isEqualTo(PostingResult.POSTED);
+
+            // The shard still holds 100, which wouldn't cover it
+            accountRepository.applyBalanceDelta(accountNumber, 50L, 0L);
+            assertThat(strategy.post(PostingLoad.transaction(accountNumber, "withdrawal", 150L))).isEqualTo(PostingResult.POSTED);
+
+            assertThat(strategy.post(PostingLoad.transaction(accountNumber, "withdrawal", 1L)))
+                    .isEqualTo(PostingResult.INSUFFICIENT_FUNDS);
+            assertThat(accountRepository.findById(accountNumber).orElseThrow().getBalance()).isZero();
+            assertThat(transactionRepository.countByAccountNumber(accountNumber)).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shardedStrategy_accountDeletedOutsideTheShard_isNotFound() {
+        try (ShardedLedgerPostingStrategy strategy = new ShardedLedgerPostingStrategy(
+                accountRepository, transactionRepository, transactionManager, 1, 16, 16, 16)) {
+            String accountNumber = createAccount();
+            assertThat(strategy.post(PostingLoad.transaction(accountNumber, "deposit", 100L))).isEqualTo(PostingResult.POSTED);
+
+            accountRepository.deleteAccount(accountNumber);
+            assertThat(strategy.post(PostingLoad.transaction(accountNumber, "deposit", 100L)))
+                    .isEqualTo(PostingResult.ACCOUNT_NOT_FOUND);
+        }
+    }
+
+    @Test
+    void groupCommitStrategy_losesNoUpdates() throws Exception {
+        try (GroupCommitPostingStrategy strategy = new GroupCommitPostingStrategy(batchWriter(), 2, 256, 1024,
+                new SimpleMeterRegistry())) {
+            runContention("group-commit", strategy);
+        }
+    }
+
+    private PostingBatchWriter batchWriter() {
+        return new PostingBatchWriter(accountRepository, transactionRepository, transactionManager, 5);
+    }
+
+    private void runContention(String name, BalancePostingStrategy strategy) throws Exception {
+        String accountNumber = createAccount();
+        PostingLoad.Outcome outcome = PostingLoad.contend(strategy, accountNumber, THREADS, POSTINGS_PER_THREAD);
+
+        assertThat(outcome.posted() + outcome.rejected()).as(name).isEqualTo(THREADS * POSTINGS_PER_THREAD);
+        assertThat(transactionRepository.countByAccountNumber(accountNumber)).as(name).isEqualTo(outcome.posted());
+        // Any difference is a lost update
+        long actualBalance = accountRepository.findById(accountNumber).orElseThrow().getBalance();
+        assertThat(actualBalance).as(name).isEqualTo(outcome.expectedBalance());
+    }
+
+    private String createAccount() {
+        return accountRepository.save(PostingLoad.account()).getAccountNumber();
+    }
+}
@@ -0,0 +1,82 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.eagle.repository.AccountRepository;
+import com.eagle.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class PostingBatchWriterTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Loses the version race on every write that touches one account, as if it kept being posted to elsewhere
+    private final class ContendedBatchWriter extends PostingBatchWriter {
+        private final String contendedAccountNumber;
+        private int applied;
+
+        ContendedBatchWriter(String contendedAccountNumber) {
+            super(accountRepository, transactionRepository, transactionManager, 3);
+            this.contendedAccountNumber = contendedAccountNumber;
+        }
+
+        @Override
+        List<PostingResult> apply(List<TransactionModel> transactions) {
+            applied++;
+            if (transactions.stream().anyMatch(t -> t.getAccountNumber().equals(contendedAccountNumber))) {
+                throw new OptimisticLockingFailureException("Account " + contendedAccountNumber + " changed");
+            }
+            return super.apply(transactions);
+        }
+    }
+
+    @Test
+    void write_batchThatKeepsConflicting_onlyConflictsTheContendedAccount() {
+        String quiet = createAccount();
+        String contended = createAccount();
+        ContendedBatchWriter batchWriter = new ContendedBatchWriter(contended);
+
+        List<PostingResult> results = batchWriter.write(List.of(
+                PostingLoad.transaction(quiet, "deposit", 100L),
+                PostingLoad.transaction(contended, "deposit", 100L),
+                PostingLoad.transaction(quiet, "withdrawal", 30L)));
+
+        assertThat(results).containsExactly(PostingResult.POSTED, PostingResult.CONFLICT, PostingResult.POSTED);
+        assertThat(accountRepository.findById(quiet).orElseThrow().getBalance()).isEqualTo(70L);
+        assertThat(accountRepository.findById(contended).orElseThrow().getBalance()).isZero();
+        assertThat(transactionRepository.countByAccountNumber(quiet)).isEqualTo(2);
+        assertThat(transactionRepository.countByAccountNumber(contended)).isZero();
+    }
+
+    @Test
+    void write_batchWithoutConflicts_isWrittenTogether() {
+        String accountNumber = createAccount();
+        ContendedBatchWriter batchWriter = new ContendedBatchWriter("none");
+
+        List<PostingResult> results = batchWriter.write(List.of(
+                PostingLoad.transaction(accountNumber, "deposit", 100L),
+                PostingLoad.transaction(accountNumber, "withdrawal", 150L)));
+
+        assertThat(results).containsExactly(PostingResult.POSTED, PostingResult.INSUFFICIENT_FUNDS);
+        assertThat(batchWriter.applied).isEqualTo(1);
+    }
+
+    private String createAccount() {
+        return accountRepository.save(PostingLoad.account()).getAccountNumber();
+    }
+}
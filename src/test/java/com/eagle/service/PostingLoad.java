@@ -0,0 +1,118 @@
+package com.eagle.service;
+
+import com.eagle.model.AccountModel;
+import com.eagle.model.TransactionModel;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives postings at a strategy from several threads at once and tallies what came back, for
+ * the contention tests and the posting benchmarks alike.
+ */
+final class PostingLoad {
+
+    // Balance the accounts should hold if no update was lost, and how long the postings took
+    record Outcome(long posted, long rejected, long expectedBalance, long elapsedNanos) {
+
+        double perSecond() {
+            return (posted + rejected) * 1e9 / Math.max(1, elapsedNanos);
+        }
+    }
+
+    private PostingLoad() {
+    }
+
+    /**
+     * Every thread alternates deposits of 200 and withdrawals of 100 pence on one account, so
+     * they all contend on its balance and withdrawals can be turned away.
+     */
+    static Outcome contend(BalancePostingStrategy strategy, String accountNumber, int threads,
+                           int postingsPerThread) throws Exception {
+        return run(strategy, Collections.nCopies(threads, accountNumber), postingsPerThread, true);
+    }
+
+    // Every thread deposits to its own account, so throughput is bound by the strategy, not one row lock
+    static Outcome spread(BalancePostingStrategy strategy, List<String> accountNumbers,
+                          int postingsPerAccount) throws Exception {
+        return run(strategy, accountNumbers, postingsPerAccount, false);
+    }
+
+    // One thread per entry, posting to that account
+    private static Outcome run(BalancePostingStrategy strategy, List<String> threadAccounts, int postingsPerThread,
+                               boolean withdrawals) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threadAccounts.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (String accountNumber : threadAccounts) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // [0] = postings posted, [1] = postings rejected, [2] = sum of posted amounts in pence
+                    long[] totals = new long[3];
+                    for (int i = 0; i < postingsPerThread; i++) {
+                        boolean withdrawal = withdrawals && i % 2 == 1;
+                        TransactionModel transaction = transaction(accountNumber,
+                                withdrawal ? "withdrawal" : "deposit", withdrawal ? 100L : 200L);
+                        if (strategy.post(transaction) == PostingResult.POSTED) {
+                            totals[0]++;
+                            totals[2] += BalancePostingStrategy.signedAmount(transaction);
+                        } else {
+                            totals[1]++;
+                        }
+                    }
+                    return totals;
+                }));
+            }
+
+            long startNanos = System.nanoTime();
+            start.countDown();
+            long posted = 0;
+            long rejected = 0;
+            long expectedBalance = 0;
+            for (Future<long[]> future : futures) {
+                long[] totals = future.get();
+                posted += totals[0];
+                rejected += totals[1];
+                expectedBalance += totals[2];
+            }
+            return new Outcome(posted, rejected, expectedBalance, System.nanoTime() - startNanos);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // An account not yet saved, with a number no allocator would hand out
+    static AccountModel account() {
+        AccountModel account = new AccountModel();
+        account.setAccountNumber("bench-" + UUID.randomUUID().toString().substring(0, 8));
+        account.setUserId("bench-user");
+        account.setSortCode("10-10-10");
+        account.setName("Contention Account");
+        account.setAccountType("personal");
+        account.setCurrency("GBP");
+        account.setCreatedTimestamp(OffsetDateTime.now());
+        account.setUpdatedTimestamp(OffsetDateTime.now());
+        return account;
+    }
+
+    static TransactionModel transaction(String accountNumber, String type, long amount) {
+        TransactionModel transaction = new TransactionModel();
+        transaction.setId("tan-" + UUID.randomUUID().toString().replace("-", ""));
+        transaction.setAmount(amount);
+        transaction.setCurrency("GBP");
+        transaction.setType(type);
+        transaction.setReference("Contention");
+        transaction.setCreatedTimestamp(OffsetDateTime.now());
+        transaction.setAccountNumber(accountNumber);
+        transaction.setUserId("bench-user");
+        return transaction;
+    }
+}
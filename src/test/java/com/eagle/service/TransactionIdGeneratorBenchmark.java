@@ -0,0 +1,59 @@
+package com.eagle.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ID generation benchmark, run with {@code ./gradlew benchmark}: prints how many transaction
+ * IDs one generator hands out a second as threads are added, each ID costing one CAS.
+ */
+@Tag("benchmark")
+public class TransactionIdGeneratorBenchmark {
+
+    private static final int IDS_PER_THREAD = 1_000_000;
+
+    @Test
+    void idsPerSecondAcrossThreads() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        TransactionIdGenerator generator = new TransactionIdGenerator(1);
+        generate(generator, 1);
+
+        System.out.printf("%-8s %12s%n", "threads", "ids/s");
+        for (int threads = 1; threads <= cores * 2; threads *= 2) {
+            long elapsedNanos = generate(generator, threads);
+            System.out.printf("%-8d %12.0f%n", threads, threads * (double) IDS_PER_THREAD * 1e9 / elapsedNanos);
+        }
+    }
+
+    private static long generate(TransactionIdGenerator generator, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        generator.nextValue();
+                    }
+                    return null;
+                }));
+            }
+            long startNanos = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - startNanos;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
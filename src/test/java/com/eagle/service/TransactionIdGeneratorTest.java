@@ -0,0 +1,85 @@
+package com.eagle.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TransactionIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 250_000;
+
+    @Test
+    void next_matchesTransactionIdPattern() {
+        String id = new TransactionIdGenerator(1023).next();
+        assertThat(id).matches("^tan-[a-z0-9]+$").hasSize(4 + TransactionIdGenerator.WIDTH);
+    }
+
+    @Test
+    void encode_sortsAsStringsInNumericOrder() {
+        long[] values = {0, 9, 10, 35, 36, 1295, 1296, 1L << 40, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+        for (int i = 1; i < values.length; i++) {
+            String lower = TransactionIdGenerator.encode(values[i - 1]);
+            String higher = TransactionIdGenerator.encode(values[i]);
+            assertThat(lower).isLessThan(higher);
+            // The same order under a case-insensitive collation
+            assertThat(String.CASE_INSENSITIVE_ORDER.compare(lower, higher)).isNegative();
+        }
+    }
+
+    @Test
+    void next_isStrictlyIncreasingOnOneThread() {
+        TransactionIdGenerator generator = new TransactionIdGenerator(0);
+        String previous = generator.next();
+        // More than one millisecond's worth of sequence numbers
+        for (int i = 0; i < 100_000; i++) {
+            String id = generator.next();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void next_isUniqueAcrossThreadsAndNodes() throws Exception {
+        TransactionIdGenerator[] nodes = {new TransactionIdGenerator(1), new TransactionIdGenerator(2)};
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                TransactionIdGenerator generator = nodes[t % nodes.length];
+                futures.add(executor.submit(() -> {
+                    long[] values = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        values[i] = generator.nextValue();
+                    }
+                    return values;
+                }));
+            }
+            long[] all = new long[THREADS * IDS_PER_THREAD];
+            for (int t = 0; t < THREADS; t++) {
+                System.arraycopy(futures.get(t).get(), 0, all, t * IDS_PER_THREAD, IDS_PER_THREAD);
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertThat(all[i]).isNotEqualTo(all[i - 1]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void constructor_rejectsNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new TransactionIdGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TransactionIdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,105 @@
+package com.eagle.service;
+
+import com.eagle.model.TransactionModel;
+import com.eagle.response.TransactionResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransactionStreamHubTest {
+
+    // Records the transactions sent to it; optionally holds the sender inside its first send until released
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> ids = new CopyOnWriteArrayList<>();
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release;
+
+        RecordingEmitter(boolean blocking) {
+            this.release = new CountDownLatch(blocking ? 1 : 0);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            builder.build().stream()
+                    .filter(part -> part.getData() instanceof TransactionResponse)
+                    .forEach(part -> ids.add(((TransactionResponse) part.getData()).getId()));
+        }
+    }
+
+    @Test
+    void published_reachesTheAccountsSubscribersInOrder() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (TransactionStreamHub hub = hub(meterRegistry, 16)) {
+            RecordingEmitter emitter = new RecordingEmitter(false);
+            hub.subscribe("01000001", emitter);
+
+            for (int i = 1; i <= 3; i++) {
+                hub.published(transaction("tan-" + i, "01000001"));
+            }
+            hub.published(transaction("tan-other", "01000002"));
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (emitter.ids.size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(emitter.ids).containsExactly("tan-1", "tan-2", "tan-3");
+            assertThat(meterRegistry.get("eagle.stream.subscribers").gauge().value()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void published_disconnectsASubscriberWhoseBufferIsFull() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (TransactionStreamHub hub = hub(meterRegistry, 2)) {
+            RecordingEmitter slow = new RecordingEmitter(true);
+            hub.subscribe("01000001", slow);
+
+            // The sender takes the first event and stalls on it; the next two fill the buffer
+            hub.published(transaction("tan-1", "01000001"));
+            assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+            hub.published(transaction("tan-2", "01000001"));
+            hub.published(transaction("tan-3", "01000001"));
+            assertThat(hub.subscriberCount()).isEqualTo(1);
+
+            hub.published(transaction("tan-4", "01000001"));
+            assertThat(hub.subscriberCount()).isZero();
+            assertThat(meterRegistry.get("eagle.stream.slow_disconnects").counter().count()).isEqualTo(1);
+
+            // Nothing left to deliver once released: the buffered events went with the subscriber
+            slow.release.countDown();
+            Thread.sleep(50);
+            assertThat(slow.ids).containsExactly("tan-1");
+        }
+    }
+
+    private static TransactionStreamHub hub(SimpleMeterRegistry meterRegistry, int bufferSize) {
+        return new TransactionStreamHub(new TransactionMapper(new TransactionIdGenerator(0)), meterRegistry,
+                1, bufferSize, Duration.ofMinutes(1));
+    }
+
+    private static TransactionModel transaction(String id, String accountNumber) {
+        TransactionModel transaction = new TransactionModel();
+        transaction.setId(id);
+        transaction.setAccountNumber(accountNumber);
+        transaction.setType("deposit");
+        transaction.setAmount(100);
+        transaction.setCurrency("GBP");
+        transaction.setCreatedTimestamp(OffsetDateTime.now());
+        return transaction;
+    }
+}